@@ -0,0 +1,102 @@
+package parallelzo;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancellation is a flag shared by a task and all of the subtasks it makes. <br />
+ * Once {@link #cancel()} is called, or the deadline of the flag has passed,
+ * every subtask that has not finished yet stops at its next split point by throwing
+ * {@link java.util.concurrent.CancellationException CancellationException},
+ * leaving the rest of the work undone and freeing the pool threads for other work. <br />
+ * The split points are polled in the qsort, min and max tasks before a range
+ * is partitioned or divided, so a cancelled task stops after at most one partition pass
+ * over each range that is still being worked on.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class Cancellation {
+	/**
+	 * Whether cancellation was requested
+	 */
+	private volatile boolean cancelled;
+	/**
+	 * Whether the flag has a deadline
+	 */
+	private final boolean timed;
+	/**
+	 * Deadline, in {@link java.lang.System#nanoTime() System.nanoTime()} units
+	 */
+	private final long deadline;
+
+	/**
+	 * Creates a flag without a deadline, that is set only by {@link #cancel()}.
+	 */
+	public Cancellation() {
+		this.timed = false;
+		this.deadline = 0;
+	}
+
+	/**
+	 * Creates a flag that is set by {@link #cancel()} or once <code>deadline</code> has passed.
+	 * @param deadline	Deadline, in {@link java.lang.System#nanoTime() System.nanoTime()} units
+	 */
+	private Cancellation(long deadline) {
+		this.timed = true;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Creates a flag that is set once <code>deadline</code> has passed.
+	 * @param deadline	Deadline, in {@link java.lang.System#nanoTime() System.nanoTime()} units
+	 * @return	A flag with a deadline
+	 */
+	public static Cancellation withDeadline(long deadline) {
+		return new Cancellation(deadline);
+	}
+
+	/**
+	 * Creates a flag that is set once <code>timeout</code> has elapsed from now.
+	 * @param timeout	Time to allow the tasks to run
+	 * @param unit		Unit of <code>timeout</code>
+	 * @return	A flag with a deadline
+	 */
+	public static Cancellation withTimeout(long timeout, TimeUnit unit) {
+		return new Cancellation(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Requests cancellation of every task using this flag.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return	true if the deadline of this flag has passed
+	 */
+	public boolean isExpired() {
+		return timed && System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * @return	true if cancellation was requested, or the deadline has passed
+	 */
+	public boolean isCancelled() {
+		return cancelled || isExpired();
+	}
+
+	/**
+	 * Called by the tasks at their split points.
+	 * @throws CancellationException	if cancellation was requested, or the deadline has passed
+	 */
+	public void check() {
+		if(cancelled) {
+			throw new CancellationException();
+		}
+		if(isExpired()) {
+			cancelled = true;
+			throw new CancellationException("deadline exceeded");
+		}
+	}
+}
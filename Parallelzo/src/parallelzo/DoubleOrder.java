@@ -0,0 +1,57 @@
+package parallelzo;
+
+/**
+ * DoubleOrder is the order in which double values are compared by the sort, min and max operations. <br />
+ * The total orders compare the values as {@link java.lang.Double#compare(double, double) Double.compare}
+ * and {@link java.util.Arrays#sort(double[]) Arrays.sort} do. They are computed on keys:
+ * the bits of every value are transformed into a long whose signed order is the total order,
+ * so the tasks compare longs with a single comparison, and no NaN checks are made in their loops.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public enum DoubleOrder {
+	/**
+	 * The order of the <code>&lt;</code> operator, the fastest of the orders.
+	 * -0.0 and 0.0 are equal, so they end up in any order among themselves.
+	 * Sorting puts NaNs last, while min and max may skip NaNs or return one, depending on where they are
+	 */
+	NUMERIC,
+	/**
+	 * The total order, in which -0.0 is smaller than 0.0, and NaN is greater than every other value,
+	 * including positive infinity. The max of an array holding a NaN is NaN
+	 */
+	TOTAL,
+	/**
+	 * The total order, but min and max skip NaNs, and return NaN only if all of the values are NaN.
+	 * Sorting puts NaNs last, as in {@link #TOTAL}
+	 */
+	SKIP_NAN;
+
+	/**
+	 * Key of NaN, the greatest of the keys
+	 */
+	public static final long NAN_KEY = key(Double.NaN);
+
+	/**
+	 * Transforms a value into its key. <br />
+	 * The bits of a non negative value are kept, and all of the bits of a negative value
+	 * but its sign bit are flipped, so that the signed order of the keys is the total order of the values.
+	 * All NaNs have the same key.
+	 * @param value		The value
+	 * @return	The key of the value
+	 */
+	public static long key(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	/**
+	 * Transforms a key back into its value.
+	 * @param key		The key
+	 * @return	The value of the key
+	 */
+	public static double value(long key) {
+		return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+	}
+}
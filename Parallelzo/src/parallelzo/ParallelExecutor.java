@@ -0,0 +1,1509 @@
+package parallelzo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Predicate;
+
+import parallelzo.backend.ExecutionBackend;
+import parallelzo.backend.ForkJoinBackend;
+import parallelzo.batch.BatchReduceDoubleTask;
+import parallelzo.batch.BatchReduceIntTask;
+import parallelzo.batch.BatchSortArrayTask;
+import parallelzo.batch.BatchSortDoubleTask;
+import parallelzo.batch.BatchSortIntTask;
+import parallelzo.batch.SegmentedMaxDoubleTask;
+import parallelzo.batch.SegmentedMinDoubleTask;
+import parallelzo.batch.SegmentedSortDoubleTask;
+import parallelzo.counting.CountingSortIntTask;
+import parallelzo.counting.HistogramIntTask;
+import parallelzo.distinct.DistinctArrayListTask;
+import parallelzo.distinct.DistinctArrayTask;
+import parallelzo.distinct.DistinctDoubleTask;
+import parallelzo.distinct.DistinctIntTask;
+import parallelzo.filter.FilterArrayTask;
+import parallelzo.filter.FilterDoubleTask;
+import parallelzo.filter.FilterIntTask;
+import parallelzo.filter.FilterReduceArrayTask;
+import parallelzo.filter.FilterReduceDoubleTask;
+import parallelzo.filter.FilterReduceIntTask;
+import parallelzo.max.MaxArrayListTask;
+import parallelzo.max.MaxArrayTask;
+import parallelzo.max.MaxDoubleTask;
+import parallelzo.max.MaxIntTask;
+import parallelzo.max.TotalOrderMaxDoubleTask;
+import parallelzo.min.MinArrayListTask;
+import parallelzo.min.MinArrayTask;
+import parallelzo.min.MinDoubleTask;
+import parallelzo.min.MinIntTask;
+import parallelzo.min.TotalOrderMinDoubleTask;
+import parallelzo.qsort.BatchSearchDoubleTask;
+import parallelzo.qsort.BatchSearchIntTask;
+import parallelzo.qsort.EytzingerDoubleIndex;
+import parallelzo.qsort.EytzingerIntIndex;
+import parallelzo.qsort.QSortArrayListTask;
+import parallelzo.qsort.QSortArrayTask;
+import parallelzo.qsort.QSortDoubleTask;
+import parallelzo.qsort.QSortLongTask;
+import parallelzo.qsort.TotalOrderSortDoubleTask;
+import parallelzo.samplesort.SampleSortArrayTask;
+import parallelzo.scan.ScanArrayTask;
+import parallelzo.scan.ScanDoubleTask;
+import parallelzo.scan.ScanIntTask;
+import parallelzo.scan.ScanLongTask;
+import parallelzo.sets.MergeArrayTask;
+import parallelzo.sets.MergeIntTask;
+import parallelzo.sets.MergeLongTask;
+import parallelzo.sets.SetOperation;
+import parallelzo.sets.SetOperationArrayTask;
+import parallelzo.sets.SetOperationIntTask;
+import parallelzo.sets.SetOperationLongTask;
+import parallelzo.stream.SortedStreams;
+import parallelzo.strings.MultikeyQSortBytesTask;
+import parallelzo.strings.MultikeyQSortStringTask;
+
+/**
+ * ParallelExecutor runs the sort, search, distinct, lookup and set operation tasks of the library
+ * on a {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, so callers do not have to
+ * build and manage a pool of their own. <br />
+ * An executor is obtained from one of the static factories:
+ * <ul>
+ * <li>{@link #shared()} - a pool owned by the library, created on first use,
+ * with one thread per available processor</li>
+ * <li>{@link #common()} - the JVM wide {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}</li>
+ * <li>{@link #using(ForkJoinPool)} - a pool built and managed by the caller</li>
+ * </ul>
+ * {@link #withParallelism(int)} limits the number of threads used by a single call. <br />
+ * {@link #using(ExecutionBackend)} runs the same tasks on other threads than a pool's, see
+ * {@link parallelzo.backend.ExecutionBackend ExecutionBackend}. <br />
+ * Arrays shorter than {@link #INLINE_THRESHOLD} are never split by any of the tasks,
+ * so they are processed on the calling thread without submitting anything to the pool. <br />
+ * The sort, min and max operations of int, double and generic arrays and of ArrayLists also have
+ * an asynchronous form, such as {@link #sortAsync(int[])}, returning a
+ * {@link java.util.concurrent.CompletableFuture CompletableFuture} that completes on a thread of the backend.
+ * Cancelling the future stops all of the subtasks of the operation at their next split point. <br />
+ * {@link #withListener(TaskListener)} reports the events of the tasks, for example to
+ * {@link parallelzo.metrics.TaskCounters TaskCounters} or {@link parallelzo.metrics.JfrTaskListener JfrTaskListener}.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class ParallelExecutor {
+	/**
+	 * Length of an array below which a call runs on the calling thread
+	 */
+	public static final int INLINE_THRESHOLD = 1000;
+	/**
+	 * Library owned pool, created on first use of {@link #shared()}
+	 */
+	private static volatile ParallelExecutor shared;
+	/**
+	 * Library owned pools of limited parallelism, by parallelism level
+	 */
+	private static final ConcurrentMap<Integer, ParallelExecutor> limited =
+			new ConcurrentHashMap<Integer, ParallelExecutor>();
+	/**
+	 * The backend to run tasks on
+	 */
+	private final ExecutionBackend backend;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+
+	/**
+	 * Creates an executor that runs tasks on <code>pool</code>.
+	 * @param pool		The pool to run tasks on
+	 */
+	private ParallelExecutor(ForkJoinPool pool) {
+		this(new ForkJoinBackend(pool), null);
+	}
+
+	/**
+	 * Creates an executor that runs tasks on <code>backend</code> and reports their events.
+	 * @param backend	The backend to run tasks on
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	private ParallelExecutor(ExecutionBackend backend, TaskListener listener) {
+		if(backend == null) {
+			throw new NullPointerException("backend");
+		}
+		this.backend = backend;
+		this.listener = listener;
+	}
+
+	/**
+	 * Returns the executor of the library owned pool. <br />
+	 * The pool is created on first use, with one thread per available processor,
+	 * and its threads are daemon threads, so it never has to be shut down.
+	 * @return	The shared executor
+	 */
+	public static ParallelExecutor shared() {
+		ParallelExecutor executor = shared;
+		if(executor == null) {
+			synchronized (ParallelExecutor.class) {
+				executor = shared;
+				if(executor == null) {
+					executor = new ParallelExecutor(new ForkJoinPool());
+					shared = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns an executor that runs tasks on the JVM wide
+	 * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+	 * @return	The common pool executor
+	 */
+	public static ParallelExecutor common() {
+		return new ParallelExecutor(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns an executor that runs tasks on a pool managed by the caller.
+	 * @param pool		The pool to run tasks on
+	 * @return	An executor of <code>pool</code>
+	 */
+	public static ParallelExecutor using(ForkJoinPool pool) {
+		return new ParallelExecutor(pool);
+	}
+
+	/**
+	 * Returns an executor that runs tasks on a backend, for example a
+	 * {@link parallelzo.backend.ScopedBackend ScopedBackend} or a
+	 * {@link parallelzo.backend.SequentialBackend SequentialBackend}.
+	 * @param backend	The backend to run tasks on
+	 * @return	An executor of <code>backend</code>
+	 */
+	public static ParallelExecutor using(ExecutionBackend backend) {
+		return new ParallelExecutor(backend, null);
+	}
+
+	/**
+	 * Returns an executor that uses at most <code>parallelism</code> threads. <br />
+	 * A library owned pool is created for each parallelism level on first use,
+	 * and reused by every later call with the same level.
+	 * @param parallelism		Maximum number of threads to use
+	 * @return	An executor of limited parallelism
+	 */
+	public static ParallelExecutor withParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		ParallelExecutor executor = limited.get(parallelism);
+		if(executor == null) {
+			synchronized (limited) {
+				executor = limited.get(parallelism);
+				if(executor == null) {
+					executor = new ParallelExecutor(new ForkJoinPool(parallelism));
+					limited.put(parallelism, executor);
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * @return	The pool this executor runs tasks on,
+	 * 			or null if its backend is not a {@link parallelzo.backend.ForkJoinBackend ForkJoinBackend}
+	 */
+	public ForkJoinPool getPool() {
+		return (backend instanceof ForkJoinBackend) ? ((ForkJoinBackend) backend).getPool() : null;
+	}
+
+	/**
+	 * @return	The backend this executor runs tasks on
+	 */
+	public ExecutionBackend getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Returns an executor that runs tasks on the same backend as this executor,
+	 * and reports the events of the tasks to <code>listener</code>.
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @return	An instrumented executor
+	 */
+	public ParallelExecutor withListener(TaskListener listener) {
+		return new ParallelExecutor(backend, listener);
+	}
+
+	/**
+	 * Runs a task, on the calling thread if <code>length</code> is
+	 * below {@link #INLINE_THRESHOLD}, otherwise on the backend.
+	 * @param task		The task to run
+	 * @param length	Length of the array the task works on
+	 * @return	The result of the task
+	 */
+	private <T> T execute(ForkJoinTask<T> task, int length) {
+		return execute(task, length, length < INLINE_THRESHOLD);
+	}
+
+	/**
+	 * Runs a task, and reports its completion to the listener.
+	 * @param task		The task to run
+	 * @param length	Length of the array the task works on
+	 * @param inline	true to run the task on the calling thread, false to run it on the backend
+	 * @return	The result of the task
+	 */
+	private <T> T execute(ForkJoinTask<T> task, int length, boolean inline) {
+		long steals = 0;
+		long begin = 0;
+		if(listener != null) {
+			steals = backend.getStealCount();
+			begin = System.nanoTime();
+		}
+		try {
+			return inline ? task.invoke() : backend.invoke(task);
+		}
+		finally {
+			if(listener != null) {
+				listener.completed(length, System.nanoTime() - begin, backend.getStealCount() - steals);
+			}
+		}
+	}
+
+	/**
+	 * Starts a task on the backend, or runs it on the calling thread if <code>length</code> is
+	 * below {@link #INLINE_THRESHOLD}.
+	 * @param task			The task to run
+	 * @param cancellation	Cancellation flag of the task and its subtasks
+	 * @param length		Length of the array the task works on
+	 * @return	A future of the result of the task
+	 */
+	private <T> CompletableFuture<T> submit(final ForkJoinTask<T> task, Cancellation cancellation, final int length) {
+		final TaskFuture<T> future = new TaskFuture<T>(task, cancellation);
+		Runnable run = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					future.complete(execute(task, length));
+				}
+				catch(Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		};
+		if(length < INLINE_THRESHOLD) {
+			run.run();
+		}
+		else {
+			backend.execute(run);
+		}
+		return future;
+	}
+
+	/**
+	 * Returns a future that has failed with
+	 * {@link java.util.NoSuchElementException NoSuchElementException},
+	 * or null if the array to search in is not empty.
+	 * @param length	Length of the array to search in
+	 * @return	A failed future, or null
+	 */
+	private static <T> CompletableFuture<T> emptyFuture(int length) {
+		if(length != 0) {
+			return null;
+		}
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(new NoSuchElementException("empty array"));
+		return future;
+	}
+
+	/**
+	 * Returns the sum of the lengths of two arrays, for deciding whether to run inline.
+	 * @param a		Length of the first array
+	 * @param b		Length of the second array
+	 * @return	The sum of the lengths, or {@link java.lang.Integer#MAX_VALUE} if it is greater
+	 */
+	private static int totalLength(int a, int b) {
+		return (int) Math.min((long) a + b, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the sum of the lengths of a batch of arrays, for deciding whether to run inline.
+	 * @param arrays	The batch
+	 * @return	The sum of the lengths, or {@link java.lang.Integer#MAX_VALUE} if it is greater
+	 */
+	private static int totalLength(int[][] arrays) {
+		long length = 0;
+		for(int[] array : arrays) {
+			length += array.length;
+		}
+		return (int) Math.min(length, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the sum of the lengths of a batch of arrays, for deciding whether to run inline.
+	 * @param arrays	The batch
+	 * @return	The sum of the lengths, or {@link java.lang.Integer#MAX_VALUE} if it is greater
+	 */
+	private static int totalLength(double[][] arrays) {
+		long length = 0;
+		for(double[] array : arrays) {
+			length += array.length;
+		}
+		return (int) Math.min(length, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Throws {@link java.util.NoSuchElementException NoSuchElementException}
+	 * if a search is requested on an empty array.
+	 * @param length	Length of the array to search in
+	 */
+	private static void requireElements(int length) {
+		if(length == 0) {
+			throw new NoSuchElementException("empty array");
+		}
+	}
+
+	/**
+	 * Sorts an int array. <br />
+	 * Arrays whose values fall in a small range are sorted with counting sort,
+	 * see {@link parallelzo.counting.CountingSortIntTask CountingSortIntTask}.
+	 * @param array		The Array to sort
+	 */
+	public void sort(int[] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts an int array, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(int[] array, Cancellation cancellation) {
+		execute(new CountingSortIntTask(array, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Sorts a double array in the {@link DoubleOrder#NUMERIC numeric} order, with NaNs last.
+	 * @param array		The Array to sort
+	 */
+	public void sort(double[] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts a double array, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(double[] array, Cancellation cancellation) {
+		execute(new QSortDoubleTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Sorts a double array in the given order. <br />
+	 * Sorting in a total order puts -0.0 before 0.0 and NaNs last, as {@link java.util.Arrays#sort(double[])} does.
+	 * @param array		The Array to sort
+	 * @param order		The order to sort in
+	 */
+	public void sort(double[] array, DoubleOrder order) {
+		sort(array, order, new Cancellation());
+	}
+
+	/**
+	 * Sorts a double array in the given order, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param order			The order to sort in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(double[] array, DoubleOrder order, Cancellation cancellation) {
+		if(order == DoubleOrder.NUMERIC) {
+			sort(array, cancellation);
+		}
+		else {
+			execute(new TotalOrderSortDoubleTask(array, cancellation, listener), array.length);
+		}
+	}
+
+	/**
+	 * Sorts a long array.
+	 * @param array		The Array to sort
+	 */
+	public void sort(long[] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts a long array, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(long[] array, Cancellation cancellation) {
+		execute(new QSortLongTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Sorts a generic array.
+	 * @param array		The Array to sort
+	 */
+	public <T extends Comparable<T>> void sort(T[] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts a generic array, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public <T extends Comparable<T>> void sort(T[] array, Cancellation cancellation) {
+		execute(new QSortArrayTask<T>(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Sorts a generic array with sample sort, which makes fewer comparisons than
+	 * {@link #sort(Comparable[])} and divides the work evenly between the threads.
+	 * Preferable when comparisons are expensive.
+	 * @param array		The Array to sort
+	 */
+	public <T extends Comparable<T>> void sampleSort(T[] array) {
+		execute(new SampleSortArrayTask<T>(array), array.length);
+	}
+
+	/**
+	 * Returns sorts of streams that sort with this executor,
+	 * in place of {@link java.util.stream.Stream#sorted()}.
+	 * @return	Stream sorts of this executor
+	 */
+	public SortedStreams streams() {
+		return new SortedStreams(this);
+	}
+
+	/**
+	 * Sorts a String array with multikey quick sort, which never compares
+	 * the common prefix of the strings of a range twice.
+	 * @param array		The Array to sort
+	 */
+	public void sort(String[] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts a String array with multikey quick sort, stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(String[] array, Cancellation cancellation) {
+		execute(new MultikeyQSortStringTask(array, cancellation), array.length);
+	}
+
+	/**
+	 * Sorts an array of byte string keys with multikey quick sort,
+	 * comparing the bytes as unsigned.
+	 * @param array		The Array to sort
+	 */
+	public void sort(byte[][] array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts an array of byte string keys with multikey quick sort, comparing the bytes as unsigned,
+	 * stopping early if <code>cancellation</code> is set.
+	 * The array is left partially sorted when the sort is stopped.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public void sort(byte[][] array, Cancellation cancellation) {
+		execute(new MultikeyQSortBytesTask(array, cancellation), array.length);
+	}
+
+	/**
+	 * Sorts a generic ArrayList.
+	 * @param array		The ArrayList to sort
+	 */
+	public <T extends Comparable<T>> void sort(ArrayList<T> array) {
+		sort(array, new Cancellation());
+	}
+
+	/**
+	 * Sorts a generic ArrayList, stopping early if <code>cancellation</code> is set.
+	 * The ArrayList is left partially sorted when the sort is stopped.
+	 * @param array			The ArrayList to sort
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @throws java.util.concurrent.CancellationException	if the sort was stopped
+	 */
+	public <T extends Comparable<T>> void sort(ArrayList<T> array, Cancellation cancellation) {
+		execute(new QSortArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), array.size());
+	}
+
+	/**
+	 * Sorts every array of a batch of int arrays, as one balanced job,
+	 * see {@link parallelzo.batch.BatchSortIntTask BatchSortIntTask}.
+	 * @param arrays	The Arrays to sort
+	 */
+	public void sort(int[][] arrays) {
+		execute(new BatchSortIntTask(arrays), totalLength(arrays));
+	}
+
+	/**
+	 * Sorts every array of a batch of double arrays in the {@link DoubleOrder#TOTAL total order},
+	 * as one balanced job, see {@link parallelzo.batch.BatchSortDoubleTask BatchSortDoubleTask}.
+	 * @param arrays	The Arrays to sort
+	 */
+	public void sort(double[][] arrays) {
+		execute(new BatchSortDoubleTask(arrays), totalLength(arrays));
+	}
+
+	/**
+	 * Sorts every array of a batch of generic arrays, as one balanced job,
+	 * see {@link parallelzo.batch.BatchSortArrayTask BatchSortArrayTask}.
+	 * @param arrays	The Arrays to sort
+	 */
+	public <T extends Comparable<T>> void sort(List<T[]> arrays) {
+		long length = 0;
+		for(T[] array : arrays) {
+			length += array.length;
+		}
+		execute(new BatchSortArrayTask<T>(arrays), (int) Math.min(length, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Searches for the smallest value of every array of a batch of int arrays, as one balanced job.
+	 * @param arrays	The Arrays to search in
+	 * @return	Smallest element of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	public int[] min(int[][] arrays) {
+		return execute(new BatchReduceIntTask(arrays, new IntBinaryOperator() {
+			@Override
+			public int applyAsInt(int min, int value) {
+				return (min > value) ? value : min;
+			}
+		}), totalLength(arrays));
+	}
+
+	/**
+	 * Searches for the greatest value of every array of a batch of int arrays, as one balanced job.
+	 * @param arrays	The Arrays to search in
+	 * @return	Greatest element of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	public int[] max(int[][] arrays) {
+		return execute(new BatchReduceIntTask(arrays, new IntBinaryOperator() {
+			@Override
+			public int applyAsInt(int max, int value) {
+				return (max < value) ? value : max;
+			}
+		}), totalLength(arrays));
+	}
+
+	/**
+	 * Searches for the smallest value of every array of a batch of double arrays, as one balanced job,
+	 * comparing as {@link #min(double[])} does.
+	 * @param arrays	The Arrays to search in
+	 * @return	Smallest element of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	public double[] min(double[][] arrays) {
+		return execute(new BatchReduceDoubleTask(arrays, new DoubleBinaryOperator() {
+			@Override
+			public double applyAsDouble(double min, double value) {
+				return (min > value) ? value : min;
+			}
+		}), totalLength(arrays));
+	}
+
+	/**
+	 * Searches for the greatest value of every array of a batch of double arrays, as one balanced job,
+	 * comparing as {@link #max(double[])} does.
+	 * @param arrays	The Arrays to search in
+	 * @return	Greatest element of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	public double[] max(double[][] arrays) {
+		return execute(new BatchReduceDoubleTask(arrays, new DoubleBinaryOperator() {
+			@Override
+			public double applyAsDouble(double max, double value) {
+				return (max < value) ? value : max;
+			}
+		}), totalLength(arrays));
+	}
+
+	/**
+	 * Sorts every segment of a double array independently, in the total order,
+	 * see {@link parallelzo.batch.SegmentedSortDoubleTask SegmentedSortDoubleTask}.
+	 * @param array		The Array to sort
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	public void sortSegments(double[] array, int[] offsets) {
+		sortSegments(array, offsets, new Cancellation());
+	}
+
+	/**
+	 * Sorts every segment of a double array independently, in the total order,
+	 * see {@link parallelzo.batch.SegmentedSortDoubleTask SegmentedSortDoubleTask}.
+	 * @param array			The Array to sort
+	 * @param offsets		Index of the first element of every segment, followed by the index after the last segment
+	 * @param cancellation	Cancellation flag for the operation
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	public void sortSegments(double[] array, int[] offsets, Cancellation cancellation) {
+		execute(new SegmentedSortDoubleTask(array, offsets, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the smallest value of every segment of a double array,
+	 * see {@link parallelzo.batch.SegmentedMinDoubleTask SegmentedMinDoubleTask}.
+	 * @param array		The Array to search in
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 * @return	Smallest element of every segment
+	 * @throws NoSuchElementException	if one of the segments is empty
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	public double[] minSegments(double[] array, int[] offsets) {
+		return execute(new SegmentedMinDoubleTask(array, offsets, new Cancellation(), listener), array.length);
+	}
+
+	/**
+	 * Searches for the greatest value of every segment of a double array,
+	 * see {@link parallelzo.batch.SegmentedMaxDoubleTask SegmentedMaxDoubleTask}.
+	 * @param array		The Array to search in
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 * @return	Greatest element of every segment
+	 * @throws NoSuchElementException	if one of the segments is empty
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	public double[] maxSegments(double[] array, int[] offsets) {
+		return execute(new SegmentedMaxDoubleTask(array, offsets, new Cancellation(), listener), array.length);
+	}
+
+	/**
+	 * Replaces every element of a int array with the reduction of the elements before it,
+	 * see {@link parallelzo.scan.ScanIntTask ScanIntTask}.
+	 * @param array		The Array to scan
+	 * @param operator	The associative operator to scan with
+	 * @param identity	Identity value of the operator
+	 * @param inclusive	true to reduce every element with the elements before it,
+	 * 					false to reduce only the elements before it
+	 */
+	public void scan(int[] array, IntBinaryOperator operator, int identity, boolean inclusive) {
+		execute(new ScanIntTask(array, 0, array.length - 1, operator, identity, inclusive, new Cancellation()), array.length);
+	}
+
+	/**
+	 * Replaces every element of a int array with the sum of the elements before it,
+	 * see {@link parallelzo.scan.ScanIntTask ScanIntTask}.
+	 * @param array		The Array to sum
+	 * @param inclusive	true to add every element to the sum of the elements before it,
+	 * 					false to write only the sum of the elements before it
+	 */
+	public void prefixSum(int[] array, boolean inclusive) {
+		scan(array, new IntBinaryOperator() {
+			@Override
+			public int applyAsInt(int sum, int value) {
+				return sum + value;
+			}
+		}, 0, inclusive);
+	}
+
+	/**
+	 * Replaces every element of a long array with the reduction of the elements before it,
+	 * see {@link parallelzo.scan.ScanLongTask ScanLongTask}.
+	 * @param array		The Array to scan
+	 * @param operator	The associative operator to scan with
+	 * @param identity	Identity value of the operator
+	 * @param inclusive	true to reduce every element with the elements before it,
+	 * 					false to reduce only the elements before it
+	 */
+	public void scan(long[] array, LongBinaryOperator operator, long identity, boolean inclusive) {
+		execute(new ScanLongTask(array, 0, array.length - 1, operator, identity, inclusive, new Cancellation()), array.length);
+	}
+
+	/**
+	 * Replaces every element of a long array with the sum of the elements before it,
+	 * see {@link parallelzo.scan.ScanLongTask ScanLongTask}.
+	 * @param array		The Array to sum
+	 * @param inclusive	true to add every element to the sum of the elements before it,
+	 * 					false to write only the sum of the elements before it
+	 */
+	public void prefixSum(long[] array, boolean inclusive) {
+		scan(array, new LongBinaryOperator() {
+			@Override
+			public long applyAsLong(long sum, long value) {
+				return sum + value;
+			}
+		}, 0, inclusive);
+	}
+
+	/**
+	 * Replaces every element of a double array with the reduction of the elements before it,
+	 * see {@link parallelzo.scan.ScanDoubleTask ScanDoubleTask}.
+	 * @param array		The Array to scan
+	 * @param operator	The associative operator to scan with
+	 * @param identity	Identity value of the operator
+	 * @param inclusive	true to reduce every element with the elements before it,
+	 * 					false to reduce only the elements before it
+	 */
+	public void scan(double[] array, DoubleBinaryOperator operator, double identity, boolean inclusive) {
+		execute(new ScanDoubleTask(array, 0, array.length - 1, operator, identity, inclusive, new Cancellation()), array.length);
+	}
+
+	/**
+	 * Replaces every element of a double array with the sum of the elements before it,
+	 * see {@link parallelzo.scan.ScanDoubleTask ScanDoubleTask}.
+	 * @param array		The Array to sum
+	 * @param inclusive	true to add every element to the sum of the elements before it,
+	 * 					false to write only the sum of the elements before it
+	 */
+	public void prefixSum(double[] array, boolean inclusive) {
+		scan(array, new DoubleBinaryOperator() {
+			@Override
+			public double applyAsDouble(double sum, double value) {
+				return sum + value;
+			}
+		}, 0, inclusive);
+	}
+
+	/**
+	 * Replaces every element of an array with the reduction of the elements before it,
+	 * see {@link parallelzo.scan.ScanArrayTask ScanArrayTask}.
+	 * @param array		The Array to scan
+	 * @param operator	The associative operator to scan with
+	 * @param identity	Identity value of the operator
+	 * @param inclusive	true to reduce every element with the elements before it,
+	 * 					false to reduce only the elements before it
+	 */
+	public <T> void scan(T[] array, BinaryOperator<T> operator, T identity, boolean inclusive) {
+		execute(new ScanArrayTask<T>(array, 0, array.length - 1, operator, identity, inclusive, new Cancellation()),
+				array.length);
+	}
+
+	/**
+	 * Copies the elements of an int array that match a predicate into a new packed array, in their order,
+	 * see {@link parallelzo.filter.FilterIntTask FilterIntTask}.
+	 * @param array		The Array to filter
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	The matching elements
+	 */
+	public int[] filter(int[] array, IntPredicate predicate) {
+		return execute(new FilterIntTask(array, predicate), array.length);
+	}
+
+	/**
+	 * Moves the elements of an int array that match a predicate to its start and the other elements after them,
+	 * both in their order, see {@link parallelzo.filter.FilterIntTask FilterIntTask}.
+	 * @param array		The Array to partition
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	Number of matching elements
+	 */
+	public int partition(int[] array, IntPredicate predicate) {
+		FilterIntTask task = new FilterIntTask(array.clone(), array, predicate, new Cancellation());
+		execute(task, array.length);
+		return task.getSelected();
+	}
+
+	/**
+	 * Reduces the elements of an int array that match a predicate in a single pass,
+	 * see {@link parallelzo.filter.FilterReduceIntTask FilterReduceIntTask}.
+	 * @param array		The Array to reduce
+	 * @param predicate	The predicate selecting the elements
+	 * @param operator	The associative operator to reduce with
+	 * @param identity	Identity value of the operator, returned if no element matches
+	 * @return	Reduction of the matching elements
+	 */
+	public int filterReduce(int[] array, IntPredicate predicate, IntBinaryOperator operator, int identity) {
+		return execute(new FilterReduceIntTask(array, predicate, operator, identity), array.length);
+	}
+
+	/**
+	 * Copies the elements of a double array that match a predicate into a new packed array, in their order,
+	 * see {@link parallelzo.filter.FilterDoubleTask FilterDoubleTask}.
+	 * @param array		The Array to filter
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	The matching elements
+	 */
+	public double[] filter(double[] array, DoublePredicate predicate) {
+		return execute(new FilterDoubleTask(array, predicate), array.length);
+	}
+
+	/**
+	 * Moves the elements of a double array that match a predicate to its start and the other elements after them,
+	 * both in their order, see {@link parallelzo.filter.FilterDoubleTask FilterDoubleTask}.
+	 * @param array		The Array to partition
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	Number of matching elements
+	 */
+	public int partition(double[] array, DoublePredicate predicate) {
+		FilterDoubleTask task = new FilterDoubleTask(array.clone(), array, predicate, new Cancellation());
+		execute(task, array.length);
+		return task.getSelected();
+	}
+
+	/**
+	 * Reduces the elements of a double array that match a predicate in a single pass,
+	 * see {@link parallelzo.filter.FilterReduceDoubleTask FilterReduceDoubleTask}.
+	 * @param array		The Array to reduce
+	 * @param predicate	The predicate selecting the elements
+	 * @param operator	The associative operator to reduce with
+	 * @param identity	Identity value of the operator, returned if no element matches
+	 * @return	Reduction of the matching elements
+	 */
+	public double filterReduce(double[] array, DoublePredicate predicate, DoubleBinaryOperator operator, double identity) {
+		return execute(new FilterReduceDoubleTask(array, predicate, operator, identity), array.length);
+	}
+
+	/**
+	 * Copies the elements of an array that match a predicate into a new packed array, in their order,
+	 * see {@link parallelzo.filter.FilterArrayTask FilterArrayTask}.
+	 * @param array		The Array to filter
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	The matching elements
+	 */
+	public <T> T[] filter(T[] array, Predicate<? super T> predicate) {
+		return execute(new FilterArrayTask<T>(array, predicate), array.length);
+	}
+
+	/**
+	 * Moves the elements of an array that match a predicate to its start and the other elements after them,
+	 * both in their order, see {@link parallelzo.filter.FilterArrayTask FilterArrayTask}.
+	 * @param array		The Array to partition
+	 * @param predicate	The predicate selecting the elements, free of side effects
+	 * @return	Number of matching elements
+	 */
+	public <T> int partition(T[] array, Predicate<? super T> predicate) {
+		FilterArrayTask<T> task = new FilterArrayTask<T>(array.clone(), array, predicate, new Cancellation());
+		execute(task, array.length);
+		return task.getSelected();
+	}
+
+	/**
+	 * Reduces the elements of an array that match a predicate in a single pass,
+	 * see {@link parallelzo.filter.FilterReduceArrayTask FilterReduceArrayTask}.
+	 * @param array		The Array to reduce
+	 * @param predicate	The predicate selecting the elements
+	 * @param operator	The associative operator to reduce with
+	 * @param identity	Identity value of the operator, returned if no element matches
+	 * @return	Reduction of the matching elements
+	 */
+	public <T> T filterReduce(T[] array, Predicate<? super T> predicate, BinaryOperator<T> operator, T identity) {
+		return execute(new FilterReduceArrayTask<T>(array, predicate, operator, identity), array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in an int array.
+	 * @param array		The Array to search in
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public int min(int[] array) {
+		return min(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the smallest value in an int array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public int min(int[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MinIntTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a double array.
+	 * @param array		The Array to search in
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public double min(double[] array) {
+		return min(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the smallest value in a double array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public double min(double[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MinDoubleTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a double array in the given order. <br />
+	 * In both total orders NaNs are skipped, and NaN is returned only if all of the values are NaN.
+	 * @param array		The Array to search in
+	 * @param order		The order to compare the values in
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public double min(double[] array, DoubleOrder order) {
+		requireElements(array.length);
+		if(order == DoubleOrder.NUMERIC) {
+			return min(array);
+		}
+		return execute(new TotalOrderMinDoubleTask(array, 0, array.length - 1, new Cancellation(), listener),
+				array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a generic array.
+	 * @param array		The Array to search in
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public <T extends Comparable<T>> T min(T[] array) {
+		return min(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the smallest value in a generic array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public <T extends Comparable<T>> T min(T[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MinArrayTask<T>(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a generic ArrayList.
+	 * @param array		The ArrayList to search in
+	 * @return	Smallest element in the ArrayList
+	 * @throws NoSuchElementException	if the ArrayList is empty
+	 */
+	public <T extends Comparable<T>> T min(ArrayList<T> array) {
+		return min(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the smallest value in a generic ArrayList, stopping early if <code>cancellation</code> is set.
+	 * @param array			The ArrayList to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Smallest element in the ArrayList
+	 * @throws NoSuchElementException	if the ArrayList is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public <T extends Comparable<T>> T min(ArrayList<T> array, Cancellation cancellation) {
+		requireElements(array.size());
+		return execute(new MinArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), array.size());
+	}
+
+	/**
+	 * Searches for the greatest value in an int array.
+	 * @param array		The Array to search in
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public int max(int[] array) {
+		return max(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the greatest value in an int array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public int max(int[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MaxIntTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a double array.
+	 * @param array		The Array to search in
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public double max(double[] array) {
+		return max(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the greatest value in a double array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public double max(double[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MaxDoubleTask(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a double array in the given order. <br />
+	 * In the {@link DoubleOrder#TOTAL TOTAL} order NaN is returned if any of the values is NaN,
+	 * in the {@link DoubleOrder#SKIP_NAN SKIP_NAN} order only if all of them are.
+	 * @param array		The Array to search in
+	 * @param order		The order to compare the values in
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public double max(double[] array, DoubleOrder order) {
+		requireElements(array.length);
+		if(order == DoubleOrder.NUMERIC) {
+			return max(array);
+		}
+		return execute(new TotalOrderMaxDoubleTask(array, 0, array.length - 1, order == DoubleOrder.SKIP_NAN,
+				new Cancellation(), listener), array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a generic array.
+	 * @param array		The Array to search in
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public <T extends Comparable<T>> T max(T[] array) {
+		return max(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the greatest value in a generic array, stopping early if <code>cancellation</code> is set.
+	 * @param array			The Array to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public <T extends Comparable<T>> T max(T[] array, Cancellation cancellation) {
+		requireElements(array.length);
+		return execute(new MaxArrayTask<T>(array, 0, array.length - 1, cancellation, listener), array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a generic ArrayList.
+	 * @param array		The ArrayList to search in
+	 * @return	Greatest element in the ArrayList
+	 * @throws NoSuchElementException	if the ArrayList is empty
+	 */
+	public <T extends Comparable<T>> T max(ArrayList<T> array) {
+		return max(array, new Cancellation());
+	}
+
+	/**
+	 * Searches for the greatest value in a generic ArrayList, stopping early if <code>cancellation</code> is set.
+	 * @param array			The ArrayList to search in
+	 * @param cancellation	Cancellation flag, possibly with a deadline
+	 * @return	Greatest element in the ArrayList
+	 * @throws NoSuchElementException	if the ArrayList is empty
+	 * @throws java.util.concurrent.CancellationException	if the search was stopped
+	 */
+	public <T extends Comparable<T>> T max(ArrayList<T> array, Cancellation cancellation) {
+		requireElements(array.size());
+		return execute(new MaxArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), array.size());
+	}
+
+	/**
+	 * Removes the duplicate values of an int array. The array itself is not modified.
+	 * @param array		The Array to remove duplicates from
+	 * @param sorted	true if the array is already sorted in ascending order
+	 * @return	A new array of the distinct values, in ascending order
+	 */
+	public int[] distinct(int[] array, boolean sorted) {
+		return execute(new DistinctIntTask(array, sorted), array.length);
+	}
+
+	/**
+	 * Removes the duplicate values of a double array. The array itself is not modified.
+	 * @param array		The Array to remove duplicates from
+	 * @param sorted	true if the array is already sorted in ascending order
+	 * @return	A new array of the distinct values, in ascending order
+	 */
+	public double[] distinct(double[] array, boolean sorted) {
+		return execute(new DistinctDoubleTask(array, sorted), array.length);
+	}
+
+	/**
+	 * Removes the duplicate values of a generic array. The array itself is not modified.
+	 * @param array		The Array to remove duplicates from
+	 * @param sorted	true if the array is already sorted in ascending order
+	 * @return	A new array of the distinct values, in ascending order
+	 */
+	public <T extends Comparable<T>> T[] distinct(T[] array, boolean sorted) {
+		return execute(new DistinctArrayTask<T>(array, sorted), array.length);
+	}
+
+	/**
+	 * Removes the duplicate values of a generic ArrayList. The ArrayList itself is not modified.
+	 * @param array		The ArrayList to remove duplicates from
+	 * @param sorted	true if the ArrayList is already sorted in ascending order
+	 * @return	A new ArrayList of the distinct values, in ascending order
+	 */
+	public <T extends Comparable<T>> ArrayList<T> distinct(ArrayList<T> array, boolean sorted) {
+		return execute(new DistinctArrayListTask<T>(array, sorted), array.size());
+	}
+
+	/**
+	 * Searches a sorted int array for many keys, and returns the index of the
+	 * first element not less than each key.
+	 * @param array		The sorted Array to search in
+	 * @param keys		The keys to search for
+	 * @return	The lower bound of every key, in the order of the keys
+	 */
+	public int[] lowerBounds(int[] array, int[] keys) {
+		return execute(new BatchSearchIntTask(array, keys, false), keys.length);
+	}
+
+	/**
+	 * Searches a sorted int array for many keys, and returns the index of the
+	 * first element greater than each key.
+	 * @param array		The sorted Array to search in
+	 * @param keys		The keys to search for
+	 * @return	The upper bound of every key, in the order of the keys
+	 */
+	public int[] upperBounds(int[] array, int[] keys) {
+		return execute(new BatchSearchIntTask(array, keys, true), keys.length);
+	}
+
+	/**
+	 * Builds an index of a sorted int array, for many repeated searches.
+	 * The index is built, and its batches of keys are searched, on the backend of this executor.
+	 * @param array		The sorted Array to index
+	 * @return	An index of the array
+	 */
+	public EytzingerIntIndex index(int[] array) {
+		return new EytzingerIntIndex(array, this);
+	}
+
+	/**
+	 * Searches a sorted double array for many keys, and returns the index of the
+	 * first element not less than each key.
+	 * @param array		The sorted Array to search in
+	 * @param keys		The keys to search for
+	 * @return	The lower bound of every key, in the order of the keys
+	 */
+	public int[] lowerBounds(double[] array, double[] keys) {
+		return execute(new BatchSearchDoubleTask(array, keys, false), keys.length);
+	}
+
+	/**
+	 * Searches a sorted double array for many keys, and returns the index of the
+	 * first element greater than each key.
+	 * @param array		The sorted Array to search in
+	 * @param keys		The keys to search for
+	 * @return	The upper bound of every key, in the order of the keys
+	 */
+	public int[] upperBounds(double[] array, double[] keys) {
+		return execute(new BatchSearchDoubleTask(array, keys, true), keys.length);
+	}
+
+	/**
+	 * Builds an index of a sorted double array, for many repeated searches.
+	 * The index is built, and its batches of keys are searched, on the backend of this executor.
+	 * @param array		The sorted Array to index
+	 * @return	An index of the array
+	 */
+	public EytzingerDoubleIndex index(double[] array) {
+		return new EytzingerDoubleIndex(array, this);
+	}
+
+	/**
+	 * Applies a set operation to two sorted int arrays.
+	 * @param operation	The operation to apply
+	 * @param a			The first sorted Array
+	 * @param b			The second sorted Array
+	 * @return	A new sorted array of the result
+	 */
+	public int[] apply(SetOperation operation, int[] a, int[] b) {
+		return execute(new SetOperationIntTask(a, b, operation), totalLength(a.length, b.length));
+	}
+
+	/**
+	 * Applies a set operation to two sorted long arrays.
+	 * @param operation	The operation to apply
+	 * @param a			The first sorted Array
+	 * @param b			The second sorted Array
+	 * @return	A new sorted array of the result
+	 */
+	public long[] apply(SetOperation operation, long[] a, long[] b) {
+		return execute(new SetOperationLongTask(a, b, operation), totalLength(a.length, b.length));
+	}
+
+	/**
+	 * Applies a set operation to two sorted generic arrays.
+	 * @param operation	The operation to apply
+	 * @param a			The first sorted Array
+	 * @param b			The second sorted Array
+	 * @return	A new sorted array of the result
+	 */
+	public <T extends Comparable<T>> T[] apply(SetOperation operation, T[] a, T[] b) {
+		return execute(new SetOperationArrayTask<T>(a, b, operation), totalLength(a.length, b.length));
+	}
+
+	/**
+	 * Merges any number of sorted int arrays.
+	 * @param arrays	The sorted Arrays to merge
+	 * @return	A new sorted array of all of the elements
+	 */
+	public int[] merge(int[][] arrays) {
+		long length = 0;
+		for(int[] array : arrays) {
+			length += array.length;
+		}
+		return execute(new MergeIntTask(arrays), (int) Math.min(length, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Merges any number of sorted long arrays.
+	 * @param arrays	The sorted Arrays to merge
+	 * @return	A new sorted array of all of the elements
+	 */
+	public long[] merge(long[][] arrays) {
+		long length = 0;
+		for(long[] array : arrays) {
+			length += array.length;
+		}
+		return execute(new MergeLongTask(arrays), (int) Math.min(length, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Merges any number of sorted generic arrays.
+	 * @param arrays	The sorted Arrays to merge
+	 * @return	A new sorted array of all of the elements
+	 */
+	public <T extends Comparable<T>> T[] merge(T[][] arrays) {
+		long length = 0;
+		for(T[] array : arrays) {
+			length += array.length;
+		}
+		return execute(new MergeArrayTask<T>(arrays), (int) Math.min(length, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * Counts how many times each value from <code>min</code> up to <code>max</code>
+	 * appears in an int array.
+	 * @param array		The array to count the values of
+	 * @param min		Smallest value to count
+	 * @param max		Greatest value to count
+	 * @return	Count of every value, with the count of value <code>v</code> at index <code>v - min</code>
+	 */
+	public int[] histogram(int[] array, int min, int max) {
+		return execute(new HistogramIntTask(array, min, max), array.length);
+	}
+
+	/**
+	 * Sorts an int array asynchronously.
+	 * @param array		The Array to sort
+	 * @return	A future completed when the array is sorted
+	 */
+	public CompletableFuture<Void> sortAsync(int[] array) {
+		Cancellation cancellation = new Cancellation();
+		return submit(new CountingSortIntTask(array, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Sorts a double array asynchronously.
+	 * @param array		The Array to sort
+	 * @return	A future completed when the array is sorted
+	 */
+	public CompletableFuture<Void> sortAsync(double[] array) {
+		Cancellation cancellation = new Cancellation();
+		return submit(new QSortDoubleTask(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Sorts a generic array asynchronously.
+	 * @param array		The Array to sort
+	 * @return	A future completed when the array is sorted
+	 */
+	public <T extends Comparable<T>> CompletableFuture<Void> sortAsync(T[] array) {
+		Cancellation cancellation = new Cancellation();
+		return submit(new QSortArrayTask<T>(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Sorts a generic ArrayList asynchronously.
+	 * @param array		The ArrayList to sort
+	 * @return	A future completed when the ArrayList is sorted
+	 */
+	public <T extends Comparable<T>> CompletableFuture<Void> sortAsync(ArrayList<T> array) {
+		Cancellation cancellation = new Cancellation();
+		return submit(new QSortArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), cancellation, array.size());
+	}
+
+	/**
+	 * Searches for the smallest value in an int array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the smallest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public CompletableFuture<Integer> minAsync(int[] array) {
+		CompletableFuture<Integer> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MinIntTask(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a double array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the smallest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public CompletableFuture<Double> minAsync(double[] array) {
+		CompletableFuture<Double> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MinDoubleTask(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a generic array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the smallest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public <T extends Comparable<T>> CompletableFuture<T> minAsync(T[] array) {
+		CompletableFuture<T> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MinArrayTask<T>(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the smallest value in a generic ArrayList asynchronously.
+	 * @param array		The ArrayList to search in
+	 * @return	A future of the smallest element in the ArrayList,
+	 * 			failed with NoSuchElementException if the ArrayList is empty
+	 */
+	public <T extends Comparable<T>> CompletableFuture<T> minAsync(ArrayList<T> array) {
+		CompletableFuture<T> empty = emptyFuture(array.size());
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MinArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), cancellation, array.size());
+	}
+
+	/**
+	 * Searches for the greatest value in an int array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the greatest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public CompletableFuture<Integer> maxAsync(int[] array) {
+		CompletableFuture<Integer> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MaxIntTask(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a double array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the greatest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public CompletableFuture<Double> maxAsync(double[] array) {
+		CompletableFuture<Double> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MaxDoubleTask(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a generic array asynchronously.
+	 * @param array		The Array to search in
+	 * @return	A future of the greatest element in the array,
+	 * 			failed with NoSuchElementException if the array is empty
+	 */
+	public <T extends Comparable<T>> CompletableFuture<T> maxAsync(T[] array) {
+		CompletableFuture<T> empty = emptyFuture(array.length);
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MaxArrayTask<T>(array, 0, array.length - 1, cancellation, listener), cancellation, array.length);
+	}
+
+	/**
+	 * Searches for the greatest value in a generic ArrayList asynchronously.
+	 * @param array		The ArrayList to search in
+	 * @return	A future of the greatest element in the ArrayList,
+	 * 			failed with NoSuchElementException if the ArrayList is empty
+	 */
+	public <T extends Comparable<T>> CompletableFuture<T> maxAsync(ArrayList<T> array) {
+		CompletableFuture<T> empty = emptyFuture(array.size());
+		if(empty != null) {
+			return empty;
+		}
+		Cancellation cancellation = new Cancellation();
+		return submit(new MaxArrayListTask<T>(array, 0, array.size() - 1, cancellation, listener), cancellation, array.size());
+	}
+
+	/**
+	 * A future of a task, that cancels the task and all of its subtasks when cancelled.
+	 */
+	private static class TaskFuture<T> extends CompletableFuture<T> {
+		/**
+		 * The task whose result completes this future
+		 */
+		private final ForkJoinTask<T> task;
+		/**
+		 * Cancellation flag of the task and its subtasks
+		 */
+		private final Cancellation cancellation;
+
+		/**
+		 * Creates a future of a task.
+		 * @param task			The task whose result completes this future
+		 * @param cancellation	Cancellation flag of the task and its subtasks
+		 */
+		TaskFuture(ForkJoinTask<T> task, Cancellation cancellation) {
+			this.task = task;
+			this.cancellation = cancellation;
+		}
+
+		/**
+		 * Cancels this future, the task, and all of the subtasks of the task.
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			cancellation.cancel();
+			task.cancel(mayInterruptIfRunning);
+			return super.cancel(mayInterruptIfRunning);
+		}
+	}
+}
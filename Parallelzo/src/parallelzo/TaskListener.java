@@ -0,0 +1,50 @@
+package parallelzo;
+
+/**
+ * TaskListener receives events from the qsort, min and max tasks, and the segmented tasks
+ * of the batch package, while they run. <br />
+ * Listeners are opt-in: a task created without a listener skips every call and
+ * every time measurement, so instrumentation costs nothing when it is disabled. <br />
+ * Methods are called concurrently from all of the pool threads working on a task,
+ * and are called on the hot path, so implementations should be thread safe and cheap.
+ * <br />
+ * Depth is the number of splits between a task and the task that started the operation,
+ * which has a depth of 0.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public interface TaskListener {
+	/**
+	 * Called when a task divides its range and makes two new tasks.
+	 * @param depth			Depth of the task that divides its range
+	 * @param leftLength	Length of the left subrange
+	 * @param rightLength	Length of the right subrange
+	 */
+	void split(int depth, int leftLength, int rightLength);
+
+	/**
+	 * Called when a task processes its whole range on the current thread, without dividing it.
+	 * @param depth		Depth of the task
+	 * @param length	Length of the range
+	 */
+	void leaf(int depth, int length);
+
+	/**
+	 * Called after a sort task has partitioned a range it is about to divide.
+	 * @param depth		Depth of the task
+	 * @param length	Length of the partitioned range
+	 * @param nanos		Time spent partitioning, in nanoseconds
+	 */
+	void partition(int depth, int length, long nanos);
+
+	/**
+	 * Called by {@link ParallelExecutor} when an operation completes,
+	 * successfully or not.
+	 * @param length	Length of the array of the operation
+	 * @param nanos		Time spent on the operation, in nanoseconds
+	 * @param steals	Growth of the steal count of the pool during the operation.
+	 * 					Includes steals of other operations running on the same pool
+	 */
+	void completed(int length, long nanos, long steals);
+}
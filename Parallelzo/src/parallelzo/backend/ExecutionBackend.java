@@ -0,0 +1,45 @@
+package parallelzo.backend;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ExecutionBackend runs the tasks of the library for a {@link parallelzo.ParallelExecutor ParallelExecutor}. <br />
+ * The tasks themselves do not change between backends: a backend only decides which threads
+ * run a task and its subtasks, and for how long those threads live, so the same operation can be
+ * measured on every backend, and the backend picked for each deployment. <br />
+ * The library provides three backends:
+ * <ul>
+ * <li>{@link ForkJoinBackend} - a long lived {@link java.util.concurrent.ForkJoinPool ForkJoinPool}</li>
+ * <li>{@link ScopedBackend} - threads that live for a single operation</li>
+ * <li>{@link SequentialBackend} - a single thread, running one task at a time</li>
+ * </ul>
+ * Implementations must be thread safe.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public interface ExecutionBackend {
+	/**
+	 * Runs a task and all of its subtasks, and waits for them to complete.
+	 * @param task		The task to run
+	 * @return	The result of the task
+	 */
+	<T> T invoke(ForkJoinTask<T> task);
+
+	/**
+	 * Starts an action that runs an operation asynchronously, and returns without waiting for it. <br />
+	 * The action calls {@link #invoke(ForkJoinTask)} itself.
+	 * @param action	The action to start
+	 */
+	void execute(Runnable action);
+
+	/**
+	 * @return	Number of threads that may run subtasks of a single operation at once
+	 */
+	int getParallelism();
+
+	/**
+	 * @return	Number of tasks taken by threads from the queues of other threads so far,
+	 * 			for the {@link parallelzo.TaskListener#completed(int, long, long) completed} event
+	 */
+	long getStealCount();
+}
@@ -0,0 +1,130 @@
+package parallelzo.backend;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ScopedBackend runs every operation in a scope of its own, following the rules of structured concurrency:
+ * the threads that run the subtasks of an operation are started for it, and are all stopped
+ * before the operation returns, whether it completes or fails. No subtask outlives its operation,
+ * or touches the array after the operation has returned. <br />
+ * Asynchronous operations are started on virtual threads when the JVM provides them,
+ * and on new daemon threads otherwise, so callers running on virtual threads
+ * never block a carrier thread of their own while an operation runs. <br />
+ * Starting threads for every operation costs much more than running on a
+ * {@link ForkJoinBackend}, so this backend fits operations on large arrays.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class ScopedBackend implements ExecutionBackend {
+	/**
+	 * Number of threads of every scope
+	 */
+	private final int parallelism;
+	/**
+	 * Factory of the threads that start asynchronous operations
+	 */
+	private final ThreadFactory starters;
+	/**
+	 * Number of steals of all of the scopes that are closed
+	 */
+	private final AtomicLong steals = new AtomicLong();
+
+	/**
+	 * Creates a backend whose scopes have one thread per available processor.
+	 */
+	public ScopedBackend() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a backend whose scopes have <code>parallelism</code> threads.
+	 * @param parallelism		Number of threads of every scope
+	 */
+	public ScopedBackend(int parallelism) {
+		if(parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		this.starters = starters();
+	}
+
+	/**
+	 * Returns a factory of virtual threads if the JVM provides them,
+	 * and of daemon platform threads otherwise.
+	 * @return	The factory of the threads that start asynchronous operations
+	 */
+	private static ThreadFactory starters() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		}
+		catch(ReflectiveOperationException e) {
+			return new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable action) {
+					Thread thread = new Thread(action, "parallelzo-scope");
+					thread.setDaemon(true);
+					return thread;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Runs a task in a new scope, and closes the scope once the task completes or fails.
+	 * @param task		The task to run
+	 * @return	The result of the task
+	 */
+	@Override
+	public <T> T invoke(ForkJoinTask<T> task) {
+		ForkJoinPool scope = new ForkJoinPool(parallelism);
+		try {
+			return scope.invoke(task);
+		}
+		finally {
+			close(scope);
+		}
+	}
+
+	/**
+	 * Stops the threads of a scope, and waits for the subtasks they are running to return.
+	 * @param scope		The scope to close
+	 */
+	private void close(ForkJoinPool scope) {
+		steals.addAndGet(scope.getStealCount());
+		scope.shutdownNow();
+		boolean interrupted = false;
+		while(true) {
+			try {
+				if(scope.awaitTermination(1, TimeUnit.MINUTES)) {
+					break;
+				}
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void execute(Runnable action) {
+		starters.newThread(action).start();
+	}
+
+	@Override
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	@Override
+	public long getStealCount() {
+		return steals.get();
+	}
+}
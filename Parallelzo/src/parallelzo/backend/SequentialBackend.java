@@ -0,0 +1,77 @@
+package parallelzo.backend;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * SequentialBackend runs tasks one at a time, on a single thread. <br />
+ * Tasks that size their ranges by the parallelism of their pool divide the array only a few times,
+ * and the subtasks of every operation run one after the other, so this backend is a baseline
+ * for measuring the other backends, and a fit for deployments that must not use more than one core.
+ * Asynchronous operations run on the calling thread, and are complete when they return. <br />
+ * Operations from several calling threads share the single worker thread. <br />
+ * The pool never adds threads to replace a worker that blocks in a join, as pools built with
+ * <code>new ForkJoinPool(1)</code> do: a task that blocks waiting for another task of the pool
+ * waits until it is released by other means.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class SequentialBackend implements ExecutionBackend {
+	/**
+	 * Seconds an idle worker thread is kept alive
+	 */
+	private static final long KEEP_ALIVE_SECONDS = 60;
+	/**
+	 * The pool of a single thread, created on first use
+	 */
+	private volatile ForkJoinPool pool;
+
+	/**
+	 * Returns the pool of a single thread, with no spare threads to compensate for blocked workers:
+	 * its maximum size is one thread, and it accepts being saturated instead of failing
+	 * when a worker blocks.
+	 * @return	The pool of a single thread
+	 */
+	private ForkJoinPool pool() {
+		ForkJoinPool worker = pool;
+		if(worker == null) {
+			synchronized (this) {
+				worker = pool;
+				if(worker == null) {
+					worker = new ForkJoinPool(1, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+							1, 1, 0, new Predicate<ForkJoinPool>() {
+								@Override
+								public boolean test(ForkJoinPool saturated) {
+									return true;
+								}
+							}, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+					pool = worker;
+				}
+			}
+		}
+		return worker;
+	}
+
+	@Override
+	public <T> T invoke(ForkJoinTask<T> task) {
+		return pool().invoke(task);
+	}
+
+	@Override
+	public void execute(Runnable action) {
+		action.run();
+	}
+
+	@Override
+	public int getParallelism() {
+		return 1;
+	}
+
+	@Override
+	public long getStealCount() {
+		ForkJoinPool worker = pool;
+		return (worker != null) ? worker.getStealCount() : 0;
+	}
+}
@@ -0,0 +1,84 @@
+package parallelzo.batch;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleBinaryOperator;
+
+import parallelzo.Cancellation;
+/**
+ * BatchReduceDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that reduces every array of a batch of double Arrays to a single value, with an associative operator,
+ * such as {@link java.lang.Math#min(double, double) min}, {@link java.lang.Math#max(double, double) max} or a sum,
+ * and returns the value of every array. <br />
+ * The batch is divided into chunks of consecutive arrays of about the same total length,
+ * about eight per pool thread, and every chunk is reduced as a single task, one array after the other. <br />
+ * Recommended use: when the sum of array lengths is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BatchReduceDoubleTask extends RecursiveTask<double[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The Arrays to reduce
+	 */
+	private final double[][] arrays;
+	/**
+	 * The associative operator to reduce with
+	 */
+	private final DoubleBinaryOperator operator;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that reduces every array of a batch of double Arrays.
+	 * @param arrays	The Arrays to reduce, none of them empty
+	 * @param operator	The associative operator to reduce with
+	 */
+	public BatchReduceDoubleTask(double[][] arrays, DoubleBinaryOperator operator) {
+		this(arrays, operator, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that reduces every array of a batch of double Arrays.
+	 * @param arrays		The Arrays to reduce, none of them empty
+	 * @param operator		The associative operator to reduce with
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public BatchReduceDoubleTask(double[][] arrays, DoubleBinaryOperator operator, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.operator = operator;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Reduces the arrays.
+	 * @return	The value of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	@Override
+	protected double[] compute() {
+		long[] costs = new long[arrays.length];
+		for(int i = 0; i < arrays.length; i++) {
+			if(arrays[i].length == 0) {
+				throw new NoSuchElementException("empty array at index " + i);
+			}
+			costs[i] = Chunks.scanCost(arrays[i].length);
+		}
+		final double[] results = new double[arrays.length];
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				double[] array = arrays[index];
+				double result = array[0];
+				for(int i = 1; i < array.length; i++) {
+					result = operator.applyAsDouble(result, array[i]);
+				}
+				results[index] = result;
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+		return results;
+	}
+}
@@ -0,0 +1,84 @@
+package parallelzo.batch;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntBinaryOperator;
+
+import parallelzo.Cancellation;
+/**
+ * BatchReduceIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that reduces every array of a batch of int Arrays to a single value, with an associative operator,
+ * such as {@link java.lang.Math#min(int, int) min}, {@link java.lang.Math#max(int, int) max} or a sum,
+ * and returns the value of every array. <br />
+ * The batch is divided into chunks of consecutive arrays of about the same total length,
+ * about eight per pool thread, and every chunk is reduced as a single task, one array after the other. <br />
+ * Recommended use: when the sum of array lengths is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BatchReduceIntTask extends RecursiveTask<int[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The Arrays to reduce
+	 */
+	private final int[][] arrays;
+	/**
+	 * The associative operator to reduce with
+	 */
+	private final IntBinaryOperator operator;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that reduces every array of a batch of int Arrays.
+	 * @param arrays	The Arrays to reduce, none of them empty
+	 * @param operator	The associative operator to reduce with
+	 */
+	public BatchReduceIntTask(int[][] arrays, IntBinaryOperator operator) {
+		this(arrays, operator, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that reduces every array of a batch of int Arrays.
+	 * @param arrays		The Arrays to reduce, none of them empty
+	 * @param operator		The associative operator to reduce with
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public BatchReduceIntTask(int[][] arrays, IntBinaryOperator operator, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.operator = operator;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Reduces the arrays.
+	 * @return	The value of every array
+	 * @throws NoSuchElementException	if one of the arrays is empty
+	 */
+	@Override
+	protected int[] compute() {
+		long[] costs = new long[arrays.length];
+		for(int i = 0; i < arrays.length; i++) {
+			if(arrays[i].length == 0) {
+				throw new NoSuchElementException("empty array at index " + i);
+			}
+			costs[i] = Chunks.scanCost(arrays[i].length);
+		}
+		final int[] results = new int[arrays.length];
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				int[] array = arrays[index];
+				int result = array[0];
+				for(int i = 1; i < array.length; i++) {
+					result = operator.applyAsInt(result, array[i]);
+				}
+				results[index] = result;
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+		return results;
+	}
+}
@@ -0,0 +1,79 @@
+package parallelzo.batch;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.qsort.QSortArrayTask;
+/**
+ * BatchSortArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts every array of a batch of generic Arrays
+ * of a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+ * Arrays too short to be split by a {@link parallelzo.qsort.QSortArrayTask QSortArrayTask} would make a task
+ * each for no gain, so the batch is divided into chunks of consecutive arrays of about the same
+ * estimated sorting cost, about eight per pool thread, and every chunk is sorted as a single task,
+ * one array after the other, with {@link java.util.Arrays#sort(Object[])}.
+ * Arrays longer than {@link #PARALLEL_LENGTH} are sorted with a parallel
+ * {@link parallelzo.qsort.QSortArrayTask QSortArrayTask} of their own. <br />
+ * Recommended use: when the sum of array lengths is greater then 100,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BatchSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of an array to sort it in parallel
+	 */
+	public static final int PARALLEL_LENGTH = 1 << 17;
+	/**
+	 * The Arrays to sort
+	 */
+	private final List<T[]> arrays;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a sort task for a batch of generic Arrays.
+	 * @param arrays	The Arrays to sort
+	 */
+	public BatchSortArrayTask(List<T[]> arrays) {
+		this(arrays, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a batch of generic Arrays.
+	 * @param arrays		The Arrays to sort
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public BatchSortArrayTask(List<T[]> arrays, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Sorts the arrays.
+	 */
+	@Override
+	protected void compute() {
+		long[] costs = new long[arrays.size()];
+		for(int i = 0; i < costs.length; i++) {
+			costs[i] = Chunks.sortCost(arrays.get(i).length);
+		}
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				T[] array = arrays.get(index);
+				if(array.length >= PARALLEL_LENGTH) {
+					new QSortArrayTask<T>(array, 0, array.length - 1, cancellation).invoke();
+				}
+				else {
+					Arrays.sort(array);
+				}
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+	}
+}
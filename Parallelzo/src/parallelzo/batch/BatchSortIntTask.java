@@ -0,0 +1,77 @@
+package parallelzo.batch;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.qsort.QSortIntTask;
+/**
+ * BatchSortIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts every array of a batch of int Arrays. <br />
+ * Arrays too short to be split by a {@link parallelzo.qsort.QSortIntTask QSortIntTask} would make a task
+ * each for no gain, so the batch is divided into chunks of consecutive arrays of about the same
+ * estimated sorting cost, about eight per pool thread, and every chunk is sorted as a single task,
+ * one array after the other, with {@link java.util.Arrays#sort(int[])}.
+ * Arrays longer than {@link #PARALLEL_LENGTH} are sorted with a parallel
+ * {@link parallelzo.qsort.QSortIntTask QSortIntTask} of their own. <br />
+ * Recommended use: when the sum of array lengths is greater then 100,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BatchSortIntTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of an array to sort it in parallel
+	 */
+	public static final int PARALLEL_LENGTH = 1 << 17;
+	/**
+	 * The Arrays to sort
+	 */
+	private final int[][] arrays;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a sort task for a batch of int Arrays.
+	 * @param arrays	The Arrays to sort
+	 */
+	public BatchSortIntTask(int[][] arrays) {
+		this(arrays, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a batch of int Arrays.
+	 * @param arrays		The Arrays to sort
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public BatchSortIntTask(int[][] arrays, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Sorts the arrays.
+	 */
+	@Override
+	protected void compute() {
+		long[] costs = new long[arrays.length];
+		for(int i = 0; i < arrays.length; i++) {
+			costs[i] = Chunks.sortCost(arrays[i].length);
+		}
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				int[] array = arrays[index];
+				if(array.length >= PARALLEL_LENGTH) {
+					new QSortIntTask(array, 0, array.length - 1, cancellation).invoke();
+				}
+				else {
+					Arrays.sort(array);
+				}
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+	}
+}
@@ -0,0 +1,177 @@
+package parallelzo.batch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+
+/**
+ * Chunks divides a batch of arrays, or of segments of one array, into chunks of consecutive
+ * arrays of about the same cost, for the batch and segmented tasks. <br />
+ * The cost of an array is an estimate of the work it needs, in elements, plus a fixed overhead,
+ * so a chunk holds many small arrays or a few large ones. There are about {@link #CHUNKS_PER_THREAD}
+ * chunks for every pool thread, and no chunk costs less than {@link #MIN_CHUNK_COST},
+ * so the cost of a task is spread over a lot of work. An array costing more than a chunk gets a chunk of its own.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+final class Chunks {
+	/**
+	 * Estimated cost of starting the work on an array, in elements
+	 */
+	static final int OVERHEAD = 64;
+	/**
+	 * Number of chunks to divide the batch into for every pool thread
+	 */
+	static final int CHUNKS_PER_THREAD = 8;
+	/**
+	 * Minimum cost of a chunk
+	 */
+	static final long MIN_CHUNK_COST = 100000;
+
+	private Chunks() {
+	}
+
+	/**
+	 * @param length	Length of an array
+	 * @return	Estimated cost of sorting the array
+	 */
+	static long sortCost(int length) {
+		return (long) length * (32 - Integer.numberOfLeadingZeros(length)) + OVERHEAD;
+	}
+
+	/**
+	 * @param length	Length of an array
+	 * @return	Estimated cost of reading the array once
+	 */
+	static long scanCost(int length) {
+		return (long) length + OVERHEAD;
+	}
+
+	/**
+	 * Checks the offsets of segments packed into a single array, and returns the length of every segment.
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 * @param length	Length of the array
+	 * @return	Length of every segment
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	static int[] segmentLengths(int[] offsets, int length) {
+		if(offsets.length == 0) {
+			throw new IllegalArgumentException("no offsets");
+		}
+		int[] lengths = new int[offsets.length - 1];
+		if(offsets[0] < 0 || offsets[offsets.length - 1] > length) {
+			throw new IllegalArgumentException("offsets out of the array: " + offsets[0] + ", "
+					+ offsets[offsets.length - 1]);
+		}
+		for(int i = 0; i < lengths.length; i++) {
+			lengths[i] = offsets[i + 1] - offsets[i];
+			if(lengths[i] < 0) {
+				throw new IllegalArgumentException("decreasing offsets at index " + i);
+			}
+		}
+		return lengths;
+	}
+
+	/**
+	 * @return	Number of threads of the pool running the current task, or of the common pool
+	 */
+	static int threads() {
+		ForkJoinPool pool = ForkJoinTask.getPool();
+		return (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+	}
+
+	/**
+	 * Divides a batch into chunks of consecutive arrays of about the same cost.
+	 * @param costs		Cost of every array of the batch
+	 * @param threads	Number of threads to divide the batch between
+	 * @return	Index of the first array of every chunk, followed by the number of arrays
+	 */
+	static int[] balance(long[] costs, int threads) {
+		long total = 0;
+		for(long cost : costs) {
+			total += cost;
+		}
+		long target = Math.max(MIN_CHUNK_COST, total / ((long) threads * CHUNKS_PER_THREAD));
+		int[] bounds = new int[costs.length + 1];
+		int chunks = 0;
+		long cost = 0;
+		for(int i = 0; i < costs.length; i++) {
+			if(cost > 0 && cost + costs[i] > target) {
+				bounds[++chunks] = i;
+				cost = 0;
+			}
+			cost += costs[i];
+		}
+		if(cost > 0) {
+			chunks++;
+		}
+		bounds[chunks] = costs.length;
+		int[] trimmed = new int[chunks + 1];
+		System.arraycopy(bounds, 0, trimmed, 0, chunks + 1);
+		return trimmed;
+	}
+
+	/**
+	 * The work done on a single array of a batch.
+	 */
+	interface Worker {
+		/**
+		 * @param index		Index of the array in the batch
+		 */
+		void run(int index);
+	}
+
+	/**
+	 * Runs a worker over every array of a range of chunks.
+	 */
+	static final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The work done on every array
+		 */
+		private final Worker worker;
+		/**
+		 * Index of the first array of every chunk, followed by the number of arrays
+		 */
+		private final int[] bounds;
+		/**
+		 * First chunk of the range
+		 */
+		private final int lo;
+		/**
+		 * Chunk after the last chunk of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		ChunkTask(Worker worker, int[] bounds, int lo, int hi, Cancellation cancellation) {
+			this.worker = worker;
+			this.bounds = bounds;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ChunkTask(worker, bounds, lo, mid, cancellation),
+				new ChunkTask(worker, bounds, mid, hi, cancellation));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			for(int i = bounds[lo]; i < bounds[lo + 1]; i++) {
+				worker.run(i);
+			}
+		}
+	}
+}
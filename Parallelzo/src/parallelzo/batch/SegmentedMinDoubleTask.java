@@ -0,0 +1,121 @@
+package parallelzo.batch;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+import parallelzo.min.MinDoubleTask;
+/**
+ * SegmentedMinDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that searches for the smallest value of every segment of a double Array, and returns them. <br />
+ * The segments are packed one after the other in the array, and described by an array of offsets:
+ * segment <code>i</code> starts at <code>offsets[i]</code> and ends before <code>offsets[i + 1]</code>. <br />
+ * The segments are divided into chunks of consecutive segments of about the same total length,
+ * counted in elements and not in segments, and every chunk is searched as a single task.
+ * A segment longer than {@link #PARALLEL_LENGTH} gets a chunk of its own and is searched with a parallel
+ * {@link parallelzo.min.MinDoubleTask MinDoubleTask}. <br />
+ * With a {@link parallelzo.TaskListener TaskListener}, the events of every segment are reported to it:
+ * the long segments by the events of their parallel tasks, and the others as a leaf of depth 0. <br />
+ * Recommended use: when the array length is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class SegmentedMinDoubleTask extends RecursiveTask<double[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of a segment to search it in parallel
+	 */
+	public static final int PARALLEL_LENGTH = 1 << 17;
+	/**
+	 * The Array to search in
+	 */
+	private final double[] array;
+	/**
+	 * Index of the first element of every segment, followed by the index after the last segment
+	 */
+	private final int[] offsets;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+
+	/**
+	 * Creates a searching task for the smallest value of every segment of a double Array.
+	 * @param array		The Array to search in
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 */
+	public SegmentedMinDoubleTask(double[] array, int[] offsets) {
+		this(array, offsets, new Cancellation());
+	}
+
+	/**
+	 * Creates a searching task for the smallest value of every segment of a double Array.
+	 * @param array			The Array to search in
+	 * @param offsets		Index of the first element of every segment, followed by the index after the last segment
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public SegmentedMinDoubleTask(double[] array, int[] offsets, Cancellation cancellation) {
+		this(array, offsets, cancellation, null);
+	}
+
+	/**
+	 * Creates a searching task for the smallest value of every segment of a double Array.
+	 * @param array			The Array to search in
+	 * @param offsets		Index of the first element of every segment, followed by the index after the last segment
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener		Listener of task events, or null to disable instrumentation
+	 */
+	public SegmentedMinDoubleTask(double[] array, int[] offsets, Cancellation cancellation, TaskListener listener) {
+		this.array = array;
+		this.offsets = offsets;
+		this.cancellation = cancellation;
+		this.listener = listener;
+	}
+
+	/**
+	 * Searches the segments.
+	 * @return	Smallest element of every segment
+	 * @throws NoSuchElementException	if one of the segments is empty
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	@Override
+	protected double[] compute() {
+		int[] lengths = Chunks.segmentLengths(offsets, array.length);
+		long[] costs = new long[lengths.length];
+		for(int i = 0; i < lengths.length; i++) {
+			if(lengths[i] == 0) {
+				throw new NoSuchElementException("empty segment at index " + i);
+			}
+			costs[i] = Chunks.scanCost(lengths[i]);
+		}
+		final double[] results = new double[lengths.length];
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				int from = offsets[index];
+				int to = offsets[index + 1];
+				if(to - from >= PARALLEL_LENGTH) {
+					results[index] = new MinDoubleTask(array, from, to - 1, cancellation, listener).invoke();
+					return;
+				}
+				if(listener != null) {
+					listener.leaf(0, to - from);
+				}
+				double min = array[from];
+				for(int i = from + 1; i < to; i++) {
+					if(min > array[i]) {
+						min = array[i];
+					}
+				}
+				results[index] = min;
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+		return results;
+	}
+}
@@ -0,0 +1,112 @@
+package parallelzo.batch;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+import parallelzo.qsort.TotalOrderSortDoubleTask;
+/**
+ * SegmentedSortDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts every segment of a double Array independently. <br />
+ * The segments are packed one after the other in the array, and described by an array of offsets:
+ * segment <code>i</code> starts at <code>offsets[i]</code> and ends before <code>offsets[i + 1]</code>. <br />
+ * The segments are divided into chunks of consecutive segments of about the same estimated sorting cost,
+ * counted in elements and not in segments, and every chunk is sorted as a single task.
+ * A segment longer than {@link #PARALLEL_LENGTH} gets a chunk of its own and is sorted with a parallel
+ * {@link parallelzo.qsort.TotalOrderSortDoubleTask TotalOrderSortDoubleTask}, so the idle threads of the pool
+ * help with it instead of waiting for it. <br />
+ * Every segment is sorted in the {@link parallelzo.DoubleOrder#TOTAL total order}, whatever its length:
+ * -0.0 before 0.0, and NaNs last, as by {@link java.util.Arrays#sort(double[])}. <br />
+ * With a {@link parallelzo.TaskListener TaskListener}, the events of every segment are reported to it:
+ * the long segments by the events of their parallel tasks, and the others as a leaf of depth 0. <br />
+ * Recommended use: when the array length is greater then 100,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class SegmentedSortDoubleTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of a segment to sort it in parallel
+	 */
+	public static final int PARALLEL_LENGTH = 1 << 17;
+	/**
+	 * The Array to sort
+	 */
+	private final double[] array;
+	/**
+	 * Index of the first element of every segment, followed by the index after the last segment
+	 */
+	private final int[] offsets;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+
+	/**
+	 * Creates a sort task for the segments of a double Array.
+	 * @param array		The Array to sort
+	 * @param offsets	Index of the first element of every segment, followed by the index after the last segment
+	 */
+	public SegmentedSortDoubleTask(double[] array, int[] offsets) {
+		this(array, offsets, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for the segments of a double Array.
+	 * @param array			The Array to sort
+	 * @param offsets		Index of the first element of every segment, followed by the index after the last segment
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public SegmentedSortDoubleTask(double[] array, int[] offsets, Cancellation cancellation) {
+		this(array, offsets, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for the segments of a double Array.
+	 * @param array			The Array to sort
+	 * @param offsets		Index of the first element of every segment, followed by the index after the last segment
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener		Listener of task events, or null to disable instrumentation
+	 */
+	public SegmentedSortDoubleTask(double[] array, int[] offsets, Cancellation cancellation, TaskListener listener) {
+		this.array = array;
+		this.offsets = offsets;
+		this.cancellation = cancellation;
+		this.listener = listener;
+	}
+
+	/**
+	 * Sorts the segments.
+	 * @throws IllegalArgumentException	if the offsets are decreasing or out of the array
+	 */
+	@Override
+	protected void compute() {
+		int[] lengths = Chunks.segmentLengths(offsets, array.length);
+		long[] costs = new long[lengths.length];
+		for(int i = 0; i < lengths.length; i++) {
+			costs[i] = Chunks.sortCost(lengths[i]);
+		}
+		int[] bounds = Chunks.balance(costs, Chunks.threads());
+		new Chunks.ChunkTask(new Chunks.Worker() {
+			@Override
+			public void run(int index) {
+				int from = offsets[index];
+				int to = offsets[index + 1];
+				if(to - from >= PARALLEL_LENGTH) {
+					new TotalOrderSortDoubleTask(array, from, to - 1, cancellation, listener).invoke();
+				}
+				else {
+					if(listener != null) {
+						listener.leaf(0, to - from);
+					}
+					Arrays.sort(array, from, to);
+				}
+			}
+		}, bounds, 0, bounds.length - 1, cancellation).invoke();
+	}
+}
@@ -0,0 +1,224 @@
+package parallelzo.counting;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntBinaryOperator;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+import parallelzo.max.MaxIntTask;
+import parallelzo.memory.SplitPolicy;
+import parallelzo.min.MinIntTask;
+import parallelzo.qsort.QSortIntTask;
+import parallelzo.scan.ScanIntTask;
+/**
+ * CountingSortIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts an int Array using Parallel Counting Sort, when the values of the array
+ * fall in a small range. <br />
+ * The values are counted with a {@link HistogramIntTask}, the counts are prefix summed
+ * with a {@link parallelzo.scan.ScanIntTask ScanIntTask}
+ * into the position of each value, and the array is refilled in parallel,
+ * divided by position so that every task writes the same number of elements. <br />
+ * When the range of the values is not given, it is found first with a
+ * {@link parallelzo.min.MinIntTask MinIntTask} and a {@link parallelzo.max.MaxIntTask MaxIntTask}
+ * running in parallel, and if it is longer than {@link #MAX_RANGE} or than the array,
+ * the array is sorted with a {@link parallelzo.qsort.QSortIntTask QSortIntTask} instead.
+ * When the range is given, but some of the values fall outside of it,
+ * the array is also sorted with a {@link parallelzo.qsort.QSortIntTask QSortIntTask}. <br />
+ * Recommended use: when array length is greater then 20,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class CountingSortIntTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Longest value range sorted with counting sort when the range is found by the task
+	 */
+	public static final int MAX_RANGE = 65536;
+	/**
+	 * Minimum length of array to look for a small value range,
+	 * and minimum number of elements to make new tasks when refilling the array
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * The Array to sort
+	 */
+	private final int[] array;
+	/**
+	 * Whether the value range is given
+	 */
+	private final boolean ranged;
+	/**
+	 * Smallest value of the array, if the value range is given
+	 */
+	private final int min;
+	/**
+	 * Greatest value of the array, if the value range is given
+	 */
+	private final int max;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+
+	/**
+	 * Creates a sort task for an int Array, that uses counting sort if the
+	 * values of the array fall in a small range, and quick sort otherwise.
+	 * @param array		The Array to sort
+	 */
+	public CountingSortIntTask(int[] array) {
+		this(array, new Cancellation(), null);
+	}
+
+	/**
+	 * Creates a sort task for an int Array, that uses counting sort if the
+	 * values of the array fall in a small range, and quick sort otherwise.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener		Listener of task events, or null to disable instrumentation
+	 */
+	public CountingSortIntTask(int[] array, Cancellation cancellation, TaskListener listener) {
+		this.array = array;
+		this.ranged = false;
+		this.min = 0;
+		this.max = 0;
+		this.cancellation = cancellation;
+		this.listener = listener;
+	}
+
+	/**
+	 * Creates a counting sort task for an int Array whose values are all
+	 * between <code>min</code> and <code>max</code>.
+	 * If some of the values are not, the array is sorted with quick sort.
+	 * @param array			The Array to sort
+	 * @param min			Smallest value of the array
+	 * @param max			Greatest value of the array
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public CountingSortIntTask(int[] array, int min, int max, Cancellation cancellation) {
+		this.array = array;
+		this.ranged = true;
+		this.min = min;
+		this.max = max;
+		this.cancellation = cancellation;
+		this.listener = null;
+	}
+
+	/**
+	 * Sorts the array.
+	 */
+	@Override
+	protected void compute() {
+		int lo = min;
+		int hi = max;
+		if(!ranged) {
+			if(array.length < MINLEN) {
+				quickSort();
+				return;
+			}
+			MinIntTask minTask = new MinIntTask(array, 0, array.length - 1, cancellation, listener);
+			MaxIntTask maxTask = new MaxIntTask(array, 0, array.length - 1, cancellation, listener);
+			invokeAll(minTask, maxTask);
+			lo = minTask.join();
+			hi = maxTask.join();
+			long range = (long) hi - lo + 1;
+			if(range > MAX_RANGE || range > array.length) {
+				quickSort();
+				return;
+			}
+		}
+		if(array.length < 2) {
+			return;
+		}
+		int[] offsets = new HistogramIntTask(array, lo, hi, cancellation).invoke();
+		if(ranged && count(offsets) != array.length) {
+			quickSort();
+			return;
+		}
+		new ScanIntTask(offsets, 0, offsets.length - 1, new IntBinaryOperator() {
+			@Override
+			public int applyAsInt(int position, int count) {
+				return position + count;
+			}
+		}, 0, false, cancellation).invoke();
+		new FillTask(offsets, lo, 0, array.length).invoke();
+	}
+
+	/**
+	 * @param counts	Count of every value of the range
+	 * @return	Number of values of the array in the range
+	 */
+	private static long count(int[] counts) {
+		long total = 0;
+		for(int c : counts) {
+			total += c;
+		}
+		return total;
+	}
+
+	/**
+	 * Sorts the array with a {@link parallelzo.qsort.QSortIntTask QSortIntTask}.
+	 */
+	private void quickSort() {
+		new QSortIntTask(array, 0, array.length - 1, cancellation, listener).invoke();
+	}
+
+	/**
+	 * Writes the values of a range of positions of the array.
+	 */
+	private class FillTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Position in the array of the first element of every value
+		 */
+		private final int[] offsets;
+		/**
+		 * Smallest value of the array
+		 */
+		private final int base;
+		/**
+		 * First position of the range
+		 */
+		private final int from;
+		/**
+		 * Position after the last position of the range
+		 */
+		private final int to;
+
+		FillTask(int[] offsets, int base, int from, int to) {
+			this.offsets = offsets;
+			this.base = base;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from >= MINLEN) {
+				cancellation.check();
+				int mid = SplitPolicy.ALIGNED.split(from, to, Integer.BYTES);
+				invokeAll(new FillTask(offsets, base, from, mid),
+				new FillTask(offsets, base, mid, to));
+				return;
+			}
+			int k = Arrays.binarySearch(offsets, from);
+			if(k < 0) {
+				k = -k - 2;
+			}
+			while(k + 1 < offsets.length && offsets[k + 1] == from) {
+				k++;
+			}
+			int position = from;
+			while(position < to) {
+				int next = (k + 1 < offsets.length) ? Math.min(offsets[k + 1], to) : to;
+				Arrays.fill(array, position, next, base + k);
+				position = next;
+				k++;
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package parallelzo.counting;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.memory.SplitPolicy;
+/**
+ * HistogramIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that counts how many times each value of a range appears in an int Array,
+ * and returns the counts, with the count of value <code>v</code> at index <code>v - min</code>. <br />
+ * Values outside of the range are not counted. <br />
+ * The array is divided into about four ranges per pool thread, and each range is
+ * counted into a histogram of its own, so the threads never write to shared counters.
+ * The histograms are added together as the tasks are joined. <br />
+ * Recommended use: when array length is greater then 500,000 elements,
+ * and much greater than the length of the value range.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class HistogramIntTask extends RecursiveTask<int[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of array to make new tasks
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * Number of ranges to divide the array into for every pool thread
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+	/**
+	 * The array to count the values of
+	 */
+	private final int[] array;
+	/**
+	 * Smallest value to count
+	 */
+	private final int min;
+	/**
+	 * Number of values to count
+	 */
+	private final int range;
+	/**
+	 * Starting index of counting range
+	 */
+	private final int start;
+	/**
+	 * Ending index (exclusive) of counting range
+	 */
+	private final int end;
+	/**
+	 * Length of array below which a range is counted on the current thread,
+	 * or 0 if not decided yet
+	 */
+	private final int leafLength;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that counts the values from <code>min</code> up to <code>max</code>
+	 * in an int array.
+	 * @param array		The array to count the values of
+	 * @param min		Smallest value to count
+	 * @param max		Greatest value to count
+	 */
+	public HistogramIntTask(int[] array, int min, int max) {
+		this(array, min, max, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that counts the values from <code>min</code> up to <code>max</code>
+	 * in an int array.
+	 * @param array		The array to count the values of
+	 * @param min		Smallest value to count
+	 * @param max		Greatest value to count
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public HistogramIntTask(int[] array, int min, int max, Cancellation cancellation) {
+		this(array, min, rangeOf(min, max), 0, array.length, 0, cancellation);
+	}
+
+	private HistogramIntTask(int[] array, int min, int range, int start, int end, int leafLength,
+			Cancellation cancellation) {
+		this.array = array;
+		this.min = min;
+		this.range = range;
+		this.start = start;
+		this.end = end;
+		this.leafLength = leafLength;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Returns the number of values from <code>min</code> up to <code>max</code>.
+	 * @param min		Smallest value
+	 * @param max		Greatest value
+	 * @return	Length of the value range
+	 */
+	private static int rangeOf(int min, int max) {
+		long range = (long) max - min + 1;
+		if(range < 1 || range > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("invalid value range: " + min + " to " + max);
+		}
+		return (int) range;
+	}
+
+	/**
+	 * Counts the values of the array.
+	 * @return	Count of every value of the range
+	 */
+	public int[] histogram() {
+		int leaf = leafLength;
+		if(leaf == 0) {
+			ForkJoinPool pool = getPool();
+			int threads = (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+			leaf = Math.max(Math.max(MINLEN, range), (end - start) / (threads * RANGES_PER_THREAD) + 1);
+		}
+		if(end - start <= leaf) {
+			int[] counts = new int[range];
+			for(int i = start; i < end; i++) {
+				int k = array[i] - min;
+				if(Integer.compareUnsigned(k, range) < 0) {
+					counts[k]++;
+				}
+			}
+			return counts;
+		}
+		cancellation.check();
+		int mid = SplitPolicy.ALIGNED.split(start, end, Integer.BYTES);
+		HistogramIntTask left = new HistogramIntTask(array, min, range, start, mid, leaf, cancellation);
+		HistogramIntTask right = new HistogramIntTask(array, min, range, mid, end, leaf, cancellation);
+		left.fork();
+		int[] counts = right.histogram();
+		int[] leftCounts = left.join();
+		for(int k = 0; k < range; k++) {
+			counts[k] += leftCounts[k];
+		}
+		return counts;
+	}
+
+	/**
+	 * Starts the counting process.
+	 * @return	Count of every value of the range
+	 */
+	@Override
+	protected int[] compute() {
+		return histogram();
+	}
+}
@@ -0,0 +1,173 @@
+package parallelzo.distinct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.qsort.QSortArrayListTask;
+/**
+ * DistinctArrayListTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that removes the duplicate values of a generic ArrayList
+ * of a type that implements the {@link java.lang.Comparable Comparable} Interface,
+ * and returns the distinct values in ascending order, in a new ArrayList whose size is the number of distinct values. <br />
+ * The ArrayList is divided into blocks. The first parallel pass counts the values of each block
+ * that differ from their left neighbour, the counts are prefix summed into
+ * the offset of each block in the result, and the second parallel pass copies
+ * those values of each block to its offset. <br />
+ * An unsorted ArrayList is first copied and sorted with {@link parallelzo.qsort.QSortArrayListTask QSortArrayListTask}.
+ * The given ArrayList is never modified. <br />
+ * Values are duplicates of each other if <code>compareTo</code> returns 0,
+ * and the first of each run of duplicates is kept. <br />
+ * Recommended use: when ArrayList size is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class DistinctArrayListTask<T extends Comparable<T>> extends RecursiveTask<ArrayList<T>> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Length of the blocks the ArrayList is divided into
+	 */
+	private static final int BLOCK = 10000;
+	/**
+	 * The ArrayList to remove duplicates from
+	 */
+	private final ArrayList<T> array;
+	/**
+	 * Whether the ArrayList is already sorted in ascending order
+	 */
+	private final boolean sorted;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that removes the duplicate values of a generic ArrayList.
+	 * @param array		The ArrayList to remove duplicates from
+	 * @param sorted	true if the ArrayList is already sorted in ascending order
+	 */
+	public DistinctArrayListTask(ArrayList<T> array, boolean sorted) {
+		this(array, sorted, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that removes the duplicate values of a generic ArrayList.
+	 * @param array		The ArrayList to remove duplicates from
+	 * @param sorted	true if the ArrayList is already sorted in ascending order
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public DistinctArrayListTask(ArrayList<T> array, boolean sorted, Cancellation cancellation) {
+		this.array = array;
+		this.sorted = sorted;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Removes the duplicate values of the ArrayList.
+	 * @return	The distinct values in ascending order
+	 */
+	public ArrayList<T> distinct() {
+		ArrayList<T> keys = array;
+		if(!sorted) {
+			keys = new ArrayList<T>(array);
+			new QSortArrayListTask<T>(keys, 0, keys.size() - 1, cancellation).invoke();
+		}
+		int blocks = (keys.size() + BLOCK - 1) / BLOCK;
+		int[] offsets = new int[blocks + 1];
+		new BlockTask<T>(keys, null, offsets, 0, blocks, cancellation).invoke();
+		for(int b = 0; b < blocks; b++) {
+			offsets[b + 1] += offsets[b];
+		}
+		ArrayList<T> result = new ArrayList<T>(Collections.<T>nCopies(offsets[blocks], null));
+		new BlockTask<T>(keys, result, offsets, 0, blocks, cancellation).invoke();
+		return result;
+	}
+
+	/**
+	 * Starts the process.
+	 * @return	The distinct values in ascending order
+	 */
+	@Override
+	protected ArrayList<T> compute() {
+		return distinct();
+	}
+
+	/**
+	 * A pass over a range of blocks of a sorted ArrayList. <br />
+	 * Without a result ArrayList, the number of distinct values of block <code>b</code>
+	 * is stored at <code>offsets[b + 1]</code>. <br />
+	 * With a result ArrayList, the distinct values of block <code>b</code>
+	 * are copied to the result starting at <code>offsets[b]</code>.
+	 */
+	private static class BlockTask<T extends Comparable<T>> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The sorted ArrayList
+		 */
+		private final ArrayList<T> keys;
+		/**
+		 * The ArrayList to copy the distinct values to, or null to count them
+		 */
+		private final ArrayList<T> result;
+		/**
+		 * Distinct value counts, or offsets in the result, of the blocks
+		 */
+		private final int[] offsets;
+		/**
+		 * First block of the range
+		 */
+		private final int lo;
+		/**
+		 * Block after the last block of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		BlockTask(ArrayList<T> keys, ArrayList<T> result, int[] offsets, int lo, int hi, Cancellation cancellation) {
+			this.keys = keys;
+			this.result = result;
+			this.offsets = offsets;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask<T>(keys, result, offsets, lo, mid, cancellation),
+				new BlockTask<T>(keys, result, offsets, mid, hi, cancellation));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			int from = lo * BLOCK;
+			int to = Math.min(from + BLOCK, keys.size());
+			if(result == null) {
+				int count = 0;
+				for(int i = from; i < to; i++) {
+					if(i == 0 || keys.get(i).compareTo(keys.get(i - 1)) != 0) {
+						count++;
+					}
+				}
+				offsets[lo + 1] = count;
+			}
+			else {
+				int pos = offsets[lo];
+				for(int i = from; i < to; i++) {
+					if(i == 0 || keys.get(i).compareTo(keys.get(i - 1)) != 0) {
+						result.set(pos++, keys.get(i));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package parallelzo.distinct;
+import java.lang.reflect.Array;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.qsort.QSortArrayTask;
+/**
+ * DistinctArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that removes the duplicate values of a generic Array
+ * of a type that implements the {@link java.lang.Comparable Comparable} Interface,
+ * and returns the distinct values in ascending order, in a new array whose length is the number of distinct values. <br />
+ * The array is divided into blocks. The first parallel pass counts the values of each block
+ * that differ from their left neighbour, the counts are prefix summed into
+ * the offset of each block in the result, and the second parallel pass copies
+ * those values of each block to its offset. <br />
+ * An unsorted array is first copied and sorted with {@link parallelzo.qsort.QSortArrayTask QSortArrayTask}.
+ * The given array is never modified. <br />
+ * Values are duplicates of each other if <code>compareTo</code> returns 0,
+ * and the first of each run of duplicates is kept. <br />
+ * Recommended use: when array length is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class DistinctArrayTask<T extends Comparable<T>> extends RecursiveTask<T[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Length of the blocks the array is divided into
+	 */
+	private static final int BLOCK = 10000;
+	/**
+	 * The Array to remove duplicates from
+	 */
+	private final T[] array;
+	/**
+	 * Whether the array is already sorted in ascending order
+	 */
+	private final boolean sorted;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that removes the duplicate values of a generic Array.
+	 * @param array		The Array to remove duplicates from
+	 * @param sorted	true if the array is already sorted in ascending order
+	 */
+	public DistinctArrayTask(T[] array, boolean sorted) {
+		this(array, sorted, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that removes the duplicate values of a generic Array.
+	 * @param array		The Array to remove duplicates from
+	 * @param sorted	true if the array is already sorted in ascending order
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public DistinctArrayTask(T[] array, boolean sorted, Cancellation cancellation) {
+		this.array = array;
+		this.sorted = sorted;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Removes the duplicate values of the array.
+	 * @return	The distinct values in ascending order
+	 */
+	public T[] distinct() {
+		T[] keys = array;
+		if(!sorted) {
+			keys = array.clone();
+			new QSortArrayTask<T>(keys, 0, keys.length - 1, cancellation).invoke();
+		}
+		int blocks = (keys.length + BLOCK - 1) / BLOCK;
+		int[] offsets = new int[blocks + 1];
+		new BlockTask<T>(keys, null, offsets, 0, blocks, cancellation).invoke();
+		for(int b = 0; b < blocks; b++) {
+			offsets[b + 1] += offsets[b];
+		}
+		@SuppressWarnings("unchecked")
+		T[] result = (T[]) Array.newInstance(keys.getClass().getComponentType(), offsets[blocks]);
+		new BlockTask<T>(keys, result, offsets, 0, blocks, cancellation).invoke();
+		return result;
+	}
+
+	/**
+	 * Starts the process.
+	 * @return	The distinct values in ascending order
+	 */
+	@Override
+	protected T[] compute() {
+		return distinct();
+	}
+
+	/**
+	 * A pass over a range of blocks of a sorted array. <br />
+	 * Without a result array, the number of distinct values of block <code>b</code>
+	 * is stored at <code>offsets[b + 1]</code>. <br />
+	 * With a result array, the distinct values of block <code>b</code>
+	 * are copied to the result starting at <code>offsets[b]</code>.
+	 */
+	private static class BlockTask<T extends Comparable<T>> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The sorted array
+		 */
+		private final T[] keys;
+		/**
+		 * The array to copy the distinct values to, or null to count them
+		 */
+		private final T[] result;
+		/**
+		 * Distinct value counts, or offsets in the result, of the blocks
+		 */
+		private final int[] offsets;
+		/**
+		 * First block of the range
+		 */
+		private final int lo;
+		/**
+		 * Block after the last block of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		BlockTask(T[] keys, T[] result, int[] offsets, int lo, int hi, Cancellation cancellation) {
+			this.keys = keys;
+			this.result = result;
+			this.offsets = offsets;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask<T>(keys, result, offsets, lo, mid, cancellation),
+				new BlockTask<T>(keys, result, offsets, mid, hi, cancellation));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			int from = lo * BLOCK;
+			int to = Math.min(from + BLOCK, keys.length);
+			if(result == null) {
+				int count = 0;
+				for(int i = from; i < to; i++) {
+					if(i == 0 || keys[i].compareTo(keys[i - 1]) != 0) {
+						count++;
+					}
+				}
+				offsets[lo + 1] = count;
+			}
+			else {
+				int pos = offsets[lo];
+				for(int i = from; i < to; i++) {
+					if(i == 0 || keys[i].compareTo(keys[i - 1]) != 0) {
+						result[pos++] = keys[i];
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package parallelzo.filter;
+import java.lang.reflect.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import parallelzo.Cancellation;
+import parallelzo.memory.SplitPolicy;
+/**
+ * FilterArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that copies the elements of an Array that match a predicate, in their order,
+ * into a new packed array, and returns it. <br />
+ * Given a target array, it partitions instead: the matching elements are copied to the start
+ * of the target and the other elements after them, both in their order. <br />
+ * The array is divided into blocks of about the same length, about four per pool thread,
+ * and never shorter than 10,000 elements. In the first pass the matching elements of every block
+ * are counted in parallel, the counts are prefix summed on the current thread into the position
+ * of every block, and in the second pass every block copies its elements to its position in parallel.
+ * The predicate is tested twice on every element, so it has to be free of side effects. <br />
+ * Recommended use: when array length is greater then 20,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class FilterArrayTask<T> extends RecursiveTask<T[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of a block
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * Number of blocks to divide the array into for every pool thread
+	 */
+	private static final int BLOCKS_PER_THREAD = 4;
+	/**
+	 * The Array to filter
+	 */
+	private final T[] array;
+	/**
+	 * The predicate selecting the elements
+	 */
+	private final Predicate<? super T> predicate;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * true to partition the array, false to filter it
+	 */
+	private final boolean partition;
+	/**
+	 * The array to write the elements into
+	 */
+	private T[] target;
+	/**
+	 * First index of every block, followed by the index after the last block
+	 */
+	private int[] bounds;
+	/**
+	 * Number of matching elements of every block, and then of all of the blocks before it
+	 */
+	private int[] counts;
+	/**
+	 * Number of matching elements, once the task is done
+	 */
+	private int selected;
+
+	/**
+	 * Creates a filter task for an Array.
+	 * @param array			The Array to filter
+	 * @param predicate		The predicate selecting the elements
+	 */
+	public FilterArrayTask(T[] array, Predicate<? super T> predicate) {
+		this(array, null, predicate, new Cancellation());
+	}
+
+	/**
+	 * Creates a filter task for an Array.
+	 * @param array			The Array to filter
+	 * @param predicate		The predicate selecting the elements
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public FilterArrayTask(T[] array, Predicate<? super T> predicate, Cancellation cancellation) {
+		this(array, null, predicate, cancellation);
+	}
+
+	/**
+	 * Creates a partition task for an Array.
+	 * @param array			The Array to partition
+	 * @param target		The array to write the partitioned elements into, not shorter than <code>array</code>
+	 * 						and other than it, or null to filter into a new array
+	 * @param predicate		The predicate selecting the elements
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public FilterArrayTask(T[] array, T[] target, Predicate<? super T> predicate, Cancellation cancellation) {
+		this.array = array;
+		this.target = target;
+		this.partition = (target != null);
+		this.predicate = predicate;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * @return	Number of matching elements, once the task is done
+	 */
+	public int getSelected() {
+		return selected;
+	}
+
+	/**
+	 * Filters the array.
+	 * @return	The matching elements, or the target array when partitioning
+	 */
+	@Override
+	protected T[] compute() {
+		ForkJoinPool pool = getPool();
+		int threads = (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+		int blocks = Math.max(1, Math.min(threads * BLOCKS_PER_THREAD, array.length / MINLEN));
+		bounds = SplitPolicy.MIDPOINT.segments(array.length, blocks, 1);
+		counts = new int[blocks];
+		new BlockTask(true, 0, blocks).invoke();
+		int position = 0;
+		for(int b = 0; b < blocks; b++) {
+			int count = counts[b];
+			counts[b] = position;
+			position += count;
+		}
+		selected = position;
+		if(!partition) {
+			target = newArray(selected);
+		}
+		cancellation.check();
+		new BlockTask(false, 0, blocks).invoke();
+		T[] result = target;
+		target = null;
+		bounds = null;
+		counts = null;
+		return result;
+	}
+
+	/**
+	 * @param length	Length of the array
+	 * @return	A new array of the component type of the filtered array
+	 */
+	@SuppressWarnings("unchecked")
+	private T[] newArray(int length) {
+		return (T[]) Array.newInstance(array.getClass().getComponentType(), length);
+	}
+
+	/**
+	 * Counts, or copies, the matching elements of every block of a range of blocks.
+	 */
+	private class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * true to count the matching elements, false to copy them
+		 */
+		private final boolean count;
+		/**
+		 * First block of the range
+		 */
+		private final int lo;
+		/**
+		 * Block after the last block of the range
+		 */
+		private final int hi;
+
+		BlockTask(boolean count, int lo, int hi) {
+			this.count = count;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(count, lo, mid), new BlockTask(count, mid, hi));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			int from = bounds[lo];
+			int to = bounds[lo + 1];
+			if(count) {
+				int matches = 0;
+				for(int i = from; i < to; i++) {
+					if(predicate.test(array[i])) {
+						matches++;
+					}
+				}
+				counts[lo] = matches;
+				return;
+			}
+			T[] out = target;
+			int j = counts[lo];
+			if(!partition) {
+				for(int i = from; i < to; i++) {
+					if(predicate.test(array[i])) {
+						out[j++] = array[i];
+					}
+				}
+				return;
+			}
+			int k = selected + from - j;
+			for(int i = from; i < to; i++) {
+				T value = array[i];
+				if(predicate.test(value)) {
+					out[j++] = value;
+				}
+				else {
+					out[k++] = value;
+				}
+			}
+		}
+	}
+}
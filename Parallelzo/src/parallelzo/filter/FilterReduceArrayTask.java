@@ -0,0 +1,117 @@
+package parallelzo.filter;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+import parallelzo.Cancellation;
+/**
+ * FilterReduceArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that reduces the elements of an Array that match a predicate to a single value,
+ * with an associative operator such as a sum,
+ * and returns it. <br />
+ * The elements are tested and reduced in the same pass, without copying the matching elements
+ * into a filtered array first. The reduction of no elements is the identity of the operator. <br />
+ * The search is parallel if the array length is greater then 10,000 elements. <br />
+ * Recommended use: when array length is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class FilterReduceArrayTask<T> extends RecursiveTask<T> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of array to make new tasks
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * The array to reduce
+	 */
+	private final T[] array;
+	/**
+	 * Starting index of reducing range
+	 */
+	private final int start;
+	/**
+	 * Ending index of reducing range
+	 */
+	private final int end;
+	/**
+	 * The predicate selecting the elements
+	 */
+	private final Predicate<? super T> predicate;
+	/**
+	 * The associative operator to reduce with
+	 */
+	private final BinaryOperator<T> operator;
+	/**
+	 * Identity value of the operator
+	 */
+	private final T identity;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that reduces the matching elements of an array.
+	 * @param array			The Array to reduce
+	 * @param predicate		The predicate selecting the elements
+	 * @param operator		The associative operator to reduce with
+	 * @param identity		Identity value of the operator, such as <code>BigInteger.ZERO</code> for a sum
+	 */
+	public FilterReduceArrayTask(T[] array, Predicate<? super T> predicate, BinaryOperator<T> operator,
+			T identity) {
+		this(array, 0, array.length - 1, predicate, operator, identity, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that reduces the matching elements of an array. <br />
+	 * Reduces the array from <code>start</code> up to <code>end</code>.
+	 * @param array			The Array to reduce
+	 * @param start			Starting index of reducing range
+	 * @param end			Ending index of reducing range
+	 * @param predicate		The predicate selecting the elements
+	 * @param operator		The associative operator to reduce with
+	 * @param identity		Identity value of the operator, such as <code>BigInteger.ZERO</code> for a sum
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public FilterReduceArrayTask(T[] array, int start, int end, Predicate<? super T> predicate,
+			BinaryOperator<T> operator, T identity, Cancellation cancellation) {
+		this.array = array;
+		this.start = start;
+		this.end = end;
+		this.predicate = predicate;
+		this.operator = operator;
+		this.identity = identity;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Reduces the matching elements of the range. <br />
+	 * the length of the range decides whether to make new tasks(adding them to the thread pool),
+	 * or to reduce them on the current thread.
+	 * @return	Reduction of the matching elements between <code>start</code> and <code>end</code>
+	 */
+	@Override
+	protected T compute() {
+		if(end - start + 1 < MINLEN) {
+			T result = identity;
+			for(int i = start; i <= end; i++) {
+				T value = array[i];
+				if(predicate.test(value)) {
+					result = operator.apply(result, value);
+				}
+			}
+			return result;
+		}
+		cancellation.check();
+		int mid = (start + end) / 2;
+		FilterReduceArrayTask<T> left = new FilterReduceArrayTask<T>(array, start, mid, predicate, operator, identity,
+				cancellation);
+		FilterReduceArrayTask<T> right = new FilterReduceArrayTask<T>(array, mid + 1, end, predicate, operator, identity,
+				cancellation);
+		left.fork();
+		T rightResult = right.compute();
+		return operator.apply(left.join(), rightResult);
+	}
+}
@@ -0,0 +1,317 @@
+package parallelzo.io;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.memory.SplitPolicy;
+
+/**
+ * SortedFileFormat holds the layout of the files of {@link SortedIntFile} and {@link SortedDoubleFile},
+ * and the code they share. <br />
+ * All of the values of a file are little-endian. A file holds:
+ * <ol>
+ * <li>the elements of the array, starting at offset 0, so that every element is aligned to its length</li>
+ * <li>the sparse index: every {@link Footer#interval}th element, starting with the first</li>
+ * <li>the footer, the last {@link #FOOTER_BYTES} bytes of the file: {@link #MAGIC}, {@link #VERSION},
+ * the element type, the interval of the index, the number of elements, the offset of the index,
+ * the first and the last elements as 8 byte values, and {@link #MAGIC} again</li>
+ * </ol>
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+final class SortedFileFormat {
+	/**
+	 * The first and last 8 bytes of the footer, "PZSORTED" in ASCII
+	 */
+	static final long MAGIC = 0x444554524f535a50L;
+	/**
+	 * Version of the layout
+	 */
+	static final int VERSION = 1;
+	/**
+	 * Length of the footer, in bytes
+	 */
+	static final int FOOTER_BYTES = 64;
+	/**
+	 * Element type of files of int elements
+	 */
+	static final int TYPE_INT = 1;
+	/**
+	 * Element type of files of double elements
+	 */
+	static final int TYPE_DOUBLE = 2;
+	/**
+	 * Default number of elements between two keys of the sparse index
+	 */
+	static final int DEFAULT_INTERVAL = 1024;
+	/**
+	 * Length of a mapped region of the file, in bytes
+	 */
+	static final int MAP_BYTES = 1 << 30;
+	/**
+	 * Length of the buffer a task writes through, in bytes
+	 */
+	static final int BUFFER_BYTES = 1 << 20;
+	/**
+	 * Minimum number of elements a write task writes
+	 */
+	private static final int MINLEN = 1 << 16;
+	/**
+	 * Number of ranges to divide the array into for every pool thread
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+
+	private SortedFileFormat() {
+	}
+
+	/**
+	 * The metadata at the end of a file.
+	 */
+	static final class Footer {
+		/**
+		 * Element type, {@link #TYPE_INT} or {@link #TYPE_DOUBLE}
+		 */
+		final int type;
+		/**
+		 * Number of elements between two keys of the sparse index
+		 */
+		final int interval;
+		/**
+		 * Number of elements
+		 */
+		final long length;
+		/**
+		 * Offset of the sparse index in the file, in bytes
+		 */
+		final long indexOffset;
+		/**
+		 * The first element, as a long, or 0 if there are no elements
+		 */
+		final long first;
+		/**
+		 * The last element, as a long, or 0 if there are no elements
+		 */
+		final long last;
+
+		Footer(int type, int interval, long length, long indexOffset, long first, long last) {
+			this.type = type;
+			this.interval = interval;
+			this.length = length;
+			this.indexOffset = indexOffset;
+			this.first = first;
+			this.last = last;
+		}
+
+		/**
+		 * @return	Number of keys of the sparse index
+		 */
+		int keys() {
+			return (int) ((length + interval - 1) / interval);
+		}
+
+		/**
+		 * Writes the footer at a position of a file.
+		 * @param channel	The file
+		 * @param position	Offset of the footer in the file
+		 * @throws IOException	if the file cannot be written
+		 */
+		void write(FileChannel channel, long position) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(FOOTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putLong(MAGIC).putInt(VERSION).putInt(type).putInt(interval).putInt(0)
+			.putLong(length).putLong(indexOffset).putLong(first).putLong(last).putLong(MAGIC);
+			buffer.flip();
+			writeFully(channel, buffer, position);
+		}
+
+		/**
+		 * Reads the footer of a file.
+		 * @param channel	The file
+		 * @param type		The expected element type
+		 * @return	The footer
+		 * @throws IOException	if the file cannot be read, or is not a file of the expected type
+		 */
+		static Footer read(FileChannel channel, int type) throws IOException {
+			long size = channel.size();
+			if(size < FOOTER_BYTES) {
+				throw new IOException("not a sorted array file: too short");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(FOOTER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, buffer, size - FOOTER_BYTES);
+			buffer.flip();
+			if(buffer.getLong() != MAGIC || buffer.getLong(FOOTER_BYTES - 8) != MAGIC) {
+				throw new IOException("not a sorted array file: bad magic");
+			}
+			int version = buffer.getInt();
+			if(version != VERSION) {
+				throw new IOException("unsupported sorted array file version: " + version);
+			}
+			int fileType = buffer.getInt();
+			if(fileType != type) {
+				throw new IOException("sorted array file of element type " + fileType + ", expected " + type);
+			}
+			int interval = buffer.getInt();
+			buffer.getInt();
+			Footer footer = new Footer(fileType, interval, buffer.getLong(), buffer.getLong(),
+					buffer.getLong(), buffer.getLong());
+			int elementBytes = bytes(type);
+			if(interval < 1 || footer.length < 0 || footer.length > Integer.MAX_VALUE
+					|| footer.indexOffset != footer.length * elementBytes
+					|| footer.indexOffset + (long) footer.keys() * elementBytes + FOOTER_BYTES != size) {
+				throw new IOException("corrupt sorted array file: inconsistent footer");
+			}
+			return footer;
+		}
+	}
+
+	/**
+	 * @param type	Element type
+	 * @return	Length of an element of the type, in bytes
+	 */
+	static int bytes(int type) {
+		return (type == TYPE_INT) ? Integer.BYTES : Double.BYTES;
+	}
+
+	/**
+	 * Writes all of the remaining bytes of a buffer at a position of a file.
+	 * @param channel	The file
+	 * @param buffer	The bytes to write
+	 * @param position	Offset of the bytes in the file
+	 * @throws IOException	if the file cannot be written
+	 */
+	static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Reads bytes from a position of a file until a buffer is full.
+	 * @param channel	The file
+	 * @param buffer	The buffer to fill
+	 * @param position	Offset of the bytes in the file
+	 * @throws IOException	if the file cannot be read, or ends first
+	 */
+	static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if(read < 0) {
+				throw new IOException("unexpected end of file");
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Maps the elements of a file into memory, in regions of {@link #MAP_BYTES} bytes.
+	 * @param channel	The file
+	 * @param bytes		Length of the elements, in bytes
+	 * @return	The mapped regions, in little-endian order
+	 * @throws IOException	if the file cannot be mapped
+	 */
+	static MappedByteBuffer[] map(FileChannel channel, long bytes) throws IOException {
+		MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((bytes + MAP_BYTES - 1) / MAP_BYTES)];
+		for(int i = 0; i < regions.length; i++) {
+			long position = (long) i * MAP_BYTES;
+			regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_BYTES, bytes - position));
+			regions[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return regions;
+	}
+
+	/**
+	 * Returns the number of ranges to divide an array into for writing it, about four per pool thread.
+	 * @param length		Length of the array
+	 * @param parallelism	Number of threads of the pool
+	 * @return	The number of ranges, at least 1
+	 */
+	static int ranges(int length, int parallelism) {
+		return Math.max(1, Math.min(parallelism * RANGES_PER_THREAD, length / MINLEN));
+	}
+
+	/**
+	 * Returns the boundaries of the ranges an array is divided into for writing it, aligned to pages.
+	 * @param length		Length of the array
+	 * @param parallelism	Number of threads of the pool
+	 * @param elementBytes	Length of an element, in bytes
+	 * @return	The first index of every range, followed by the length of the array
+	 */
+	static int[] bounds(int length, int parallelism, int elementBytes) {
+		return SplitPolicy.ALIGNED.segments(length, ranges(length, parallelism), elementBytes);
+	}
+
+	/**
+	 * Writes a range of an array to a file.
+	 */
+	interface RangeWriter {
+		/**
+		 * Checks the order of a range of the array, and writes it at its offset in the file.
+		 * @param from		First index of the range
+		 * @param to		Index after the last index of the range
+		 * @param buffer	A direct buffer of {@link #BUFFER_BYTES} bytes, in little-endian order
+		 * @throws IOException	if the file cannot be written
+		 */
+		void write(int from, int to, ByteBuffer buffer) throws IOException;
+	}
+
+	/**
+	 * Runs a range writer over every range of a range of ranges, each with a buffer of its own.
+	 */
+	static final class WriteTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The writer of a single range
+		 */
+		private final RangeWriter writer;
+		/**
+		 * First index of every range, followed by the length of the array
+		 */
+		private final int[] bounds;
+		/**
+		 * First range of the range
+		 */
+		private final int lo;
+		/**
+		 * Range after the last range of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		WriteTask(RangeWriter writer, int[] bounds, int lo, int hi, Cancellation cancellation) {
+			this.writer = writer;
+			this.bounds = bounds;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new WriteTask(writer, bounds, lo, mid, cancellation),
+				new WriteTask(writer, bounds, mid, hi, cancellation));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			try {
+				writer.write(bounds[lo], bounds[lo + 1], buffer);
+			}
+			catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package parallelzo.io;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+import parallelzo.Cancellation;
+import parallelzo.ParallelExecutor;
+import parallelzo.io.SortedFileFormat.Footer;
+
+/**
+ * SortedIntFile writes a sorted int array to a file, and reads it back by mapping the file into memory. <br />
+ * The file holds the elements in little-endian order, followed by a sparse index of every
+ * Nth element and a footer with the first and the last elements, see {@link SortedFileFormat}. <br />
+ * The array is divided into about four ranges per pool thread, aligned to pages, and every range is checked
+ * for order and written by a task of its own, with positional writes to a shared {@link java.nio.channels.FileChannel
+ * FileChannel}. Opening a file reads only its footer and its index: the elements are mapped,
+ * and read from the page cache when first used, so a sorted file of any length is ready for lookups
+ * right away, without being read or sorted again. <br />
+ * The mapped memory is released when the file is garbage collected, not when it is closed.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class SortedIntFile implements Closeable {
+	/**
+	 * The open file
+	 */
+	private final FileChannel channel;
+	/**
+	 * The footer of the file
+	 */
+	private final Footer footer;
+	/**
+	 * The elements, mapped in regions of {@link SortedFileFormat#MAP_BYTES} bytes
+	 */
+	private final MappedByteBuffer[] regions;
+	/**
+	 * Every {@link #getInterval()}th element
+	 */
+	private final int[] index;
+	/**
+	 * Number of elements
+	 */
+	private final int length;
+
+	private SortedIntFile(FileChannel channel, Footer footer, MappedByteBuffer[] regions, int[] index) {
+		this.channel = channel;
+		this.footer = footer;
+		this.regions = regions;
+		this.index = index;
+		this.length = (int) footer.length;
+	}
+
+	/**
+	 * Writes a sorted int array to a file, with a key in the index for every 1024 elements.
+	 * @param executor	The executor to write the array on
+	 * @param array		The Array to write, sorted in ascending order
+	 * @param path		The file to write, replaced if it exists
+	 * @throws IOException	if the file cannot be written
+	 * @throws IllegalArgumentException	if the array is not sorted
+	 */
+	public static void write(ParallelExecutor executor, int[] array, Path path) throws IOException {
+		write(executor, array, path, SortedFileFormat.DEFAULT_INTERVAL);
+	}
+
+	/**
+	 * Writes a sorted int array to a file.
+	 * @param executor	The executor to write the array on
+	 * @param array		The Array to write, sorted in ascending order
+	 * @param path		The file to write, replaced if it exists
+	 * @param interval	Number of elements between two keys of the index
+	 * @throws IOException	if the file cannot be written
+	 * @throws IllegalArgumentException	if the array is not sorted, or the interval is not positive
+	 */
+	public static void write(ParallelExecutor executor, final int[] array, Path path, int interval) throws IOException {
+		if(interval < 1) {
+			throw new IllegalArgumentException("invalid index interval: " + interval);
+		}
+		boolean written = false;
+		try(final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			int[] bounds = SortedFileFormat.bounds(array.length, executor.getBackend().getParallelism(), Integer.BYTES);
+			try {
+				executor.getBackend().invoke(new SortedFileFormat.WriteTask(new SortedFileFormat.RangeWriter() {
+					@Override
+					public void write(int from, int to, ByteBuffer buffer) throws IOException {
+						for(int i = Math.max(from, 1); i < to; i++) {
+							if(array[i] < array[i - 1]) {
+								throw new IllegalArgumentException("array is not sorted at index " + i);
+							}
+						}
+						IntBuffer values = buffer.asIntBuffer();
+						for(int i = from; i < to; ) {
+							int count = Math.min(to - i, values.capacity());
+							values.clear();
+							values.put(array, i, count);
+							buffer.clear().limit(count * Integer.BYTES);
+							SortedFileFormat.writeFully(channel, buffer, (long) i * Integer.BYTES);
+							i += count;
+						}
+					}
+				}, bounds, 0, bounds.length - 1, new Cancellation()));
+			}
+			catch(UncheckedIOException e) {
+				throw e.getCause();
+			}
+			long indexOffset = (long) array.length * Integer.BYTES;
+			Footer footer = new Footer(SortedFileFormat.TYPE_INT, interval, array.length, indexOffset,
+					(array.length > 0) ? array[0] : 0, (array.length > 0) ? array[array.length - 1] : 0);
+			ByteBuffer keys = ByteBuffer.allocate(footer.keys() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			for(int i = 0; i < array.length; i += interval) {
+				keys.putInt(array[i]);
+			}
+			keys.flip();
+			SortedFileFormat.writeFully(channel, keys, indexOffset);
+			footer.write(channel, indexOffset + footer.keys() * Integer.BYTES);
+			written = true;
+		}
+		finally {
+			if(!written) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	/**
+	 * Opens a file written by {@link #write(ParallelExecutor, int[], Path)}, and maps its elements into memory.
+	 * @param path	The file to open
+	 * @return	The open file
+	 * @throws IOException	if the file cannot be read, or is not a file of sorted int elements
+	 */
+	public static SortedIntFile open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			Footer footer = Footer.read(channel, SortedFileFormat.TYPE_INT);
+			ByteBuffer keys = ByteBuffer.allocate(footer.keys() * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			SortedFileFormat.readFully(channel, keys, footer.indexOffset);
+			keys.flip();
+			int[] index = new int[footer.keys()];
+			keys.asIntBuffer().get(index);
+			return new SortedIntFile(channel, footer, SortedFileFormat.map(channel, footer.indexOffset), index);
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return	Number of elements
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @return	Number of elements between two keys of the index
+	 */
+	public int getInterval() {
+		return footer.interval;
+	}
+
+	/**
+	 * @return	The smallest element, the first one
+	 * @throws NoSuchElementException	if the file has no elements
+	 */
+	public int min() {
+		if(length == 0) {
+			throw new NoSuchElementException("empty array");
+		}
+		return (int) footer.first;
+	}
+
+	/**
+	 * @return	The greatest element, the last one
+	 * @throws NoSuchElementException	if the file has no elements
+	 */
+	public int max() {
+		if(length == 0) {
+			throw new NoSuchElementException("empty array");
+		}
+		return (int) footer.last;
+	}
+
+	/**
+	 * @param i		Index of an element
+	 * @return	The element at index <code>i</code>
+	 * @throws IndexOutOfBoundsException	if the index is out of the array
+	 */
+	public int get(int i) {
+		if(i < 0 || i >= length) {
+			throw new IndexOutOfBoundsException("index " + i + " out of length " + length);
+		}
+		long position = (long) i * Integer.BYTES;
+		return regions[(int) (position / SortedFileFormat.MAP_BYTES)].getInt((int) (position % SortedFileFormat.MAP_BYTES));
+	}
+
+	/**
+	 * Searches for a key, first in the index, and then in the elements between two keys of the index.
+	 * @param key	The value to search for
+	 * @return	Index of an element equal to the key, or <code>-(insertion point) - 1</code>,
+	 * 			as {@link java.util.Arrays#binarySearch(int[], int)}
+	 */
+	public int binarySearch(int key) {
+		int lo = 0;
+		int hi = index.length;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(index[mid] < key) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		int interval = footer.interval;
+		hi = (int) Math.min(length, (long) lo * interval + 1);
+		lo = (lo == 0) ? 0 : (lo - 1) * interval;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int value = get(mid);
+			if(value < key) {
+				lo = mid + 1;
+			}
+			else if(value > key) {
+				hi = mid;
+			}
+			else {
+				return mid;
+			}
+		}
+		return -(lo + 1);
+	}
+
+	/**
+	 * Copies all of the elements into a new array.
+	 * @return	The elements
+	 */
+	public int[] toArray() {
+		int[] array = new int[length];
+		int position = 0;
+		for(MappedByteBuffer region : regions) {
+			IntBuffer values = region.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			int count = values.remaining();
+			values.get(array, position, count);
+			position += count;
+		}
+		return array;
+	}
+
+	/**
+	 * Closes the file.
+	 * @throws IOException	if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
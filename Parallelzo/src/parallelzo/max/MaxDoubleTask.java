@@ -1,6 +1,9 @@
 package parallelzo.max;
 import java.util.concurrent.RecursiveTask;
 
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+
 /**
  * MaxDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that searches for the greatest value in a double array, and returns it. <br />
@@ -10,7 +13,7 @@ import java.util.concurrent.RecursiveTask;
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-class MaxDoubleTask extends RecursiveTask<Double> {
+public class MaxDoubleTask extends RecursiveTask<Double> {
 		private static final long serialVersionUID = 1L;
 		/**
 		 * Minimum length of array to make new tasks
@@ -28,6 +31,18 @@ class MaxDoubleTask extends RecursiveTask<Double> {
 		 * Ending index of searching range
 		 */
 		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
 		
 		/**
 		 * Creates a searching task for the greatest value in a double array. <br />
@@ -37,9 +52,48 @@ class MaxDoubleTask extends RecursiveTask<Double> {
 		 * @param end		Ending index of searching range
 		 */
 		public MaxDoubleTask(double[] array, int start, int end) {
+			this(array, start, end, new Cancellation());
+		}
+		/**
+		 * Creates a searching task for the greatest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		public MaxDoubleTask(double[] array, int start, int end, Cancellation cancellation) {
+			this(array, start, end, cancellation, null);
+		}
+		/**
+		 * Creates a searching task for the greatest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public MaxDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the greatest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private MaxDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 			this.array = array;
 			this.start = start;
 			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
 		}
 		/**
 		 * Creates a searching task for the greatest value in a double array.
@@ -49,6 +103,9 @@ class MaxDoubleTask extends RecursiveTask<Double> {
 			this.array = array;
 			this.start = 0;
 			this.end = array.length - 1;
+			this.cancellation = new Cancellation();
+			this.listener = null;
+			this.depth = 0;
 		}
 		/**
 		 * Searches for the greatest value in a double array. <br />
@@ -59,6 +116,9 @@ class MaxDoubleTask extends RecursiveTask<Double> {
 		public Double max() {
 			int len = end - start + 1;
 			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
 				double max = array[start];
 				for(int i = start + 1; i <= end; i++) {
 					if(max < array[i]) {
@@ -68,10 +128,14 @@ class MaxDoubleTask extends RecursiveTask<Double> {
 				return new Double(max);
 			}
 			else {
+				cancellation.check();
 				int mid = (start + end) / 2;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
 				Double leftMax, rightMax;
-				MaxDoubleTask left = new MaxDoubleTask(array, start, mid);
-				MaxDoubleTask right = new MaxDoubleTask(array, mid + 1, end);
+				MaxDoubleTask left = new MaxDoubleTask(array, start, mid, cancellation, listener, depth + 1);
+				MaxDoubleTask right = new MaxDoubleTask(array, mid + 1, end, cancellation, listener, depth + 1);
 				left.fork();
 				rightMax = right.compute();
 				leftMax = left.join();
@@ -1,6 +1,10 @@
 package parallelzo.max;
 import java.util.concurrent.RecursiveTask;
 
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+import parallelzo.memory.SplitPolicy;
+
 /**
  * MaxIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that searches for the greatest value in an int Array, and returns it. <br />
@@ -10,7 +14,7 @@ import java.util.concurrent.RecursiveTask;
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-class MaxIntTask extends RecursiveTask<Integer> {
+public class MaxIntTask extends RecursiveTask<Integer> {
 		private static final long serialVersionUID = 1L;
 		/**
 		 * Minimum length of array to make new tasks
@@ -28,6 +32,18 @@ class MaxIntTask extends RecursiveTask<Integer> {
 		 * Ending index of searching range
 		 */
 		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
 		
 		/**
 		 * Creates a searching task for the greatest value in an int array. <br />
@@ -37,9 +53,48 @@ class MaxIntTask extends RecursiveTask<Integer> {
 		 * @param end		Ending index of searching range
 		 */
 		public MaxIntTask(int[] array, int start, int end) {
+			this(array, start, end, new Cancellation());
+		}
+		/**
+		 * Creates a searching task for the greatest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		public MaxIntTask(int[] array, int start, int end, Cancellation cancellation) {
+			this(array, start, end, cancellation, null);
+		}
+		/**
+		 * Creates a searching task for the greatest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public MaxIntTask(int[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the greatest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private MaxIntTask(int[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 			this.array = array;
 			this.start = start;
 			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
 		}
 		/**
 		 * Creates a searching task for the greatest value in an int array.
@@ -49,6 +104,9 @@ class MaxIntTask extends RecursiveTask<Integer> {
 			this.array = array;
 			this.start = 0;
 			this.end = array.length - 1;
+			this.cancellation = new Cancellation();
+			this.listener = null;
+			this.depth = 0;
 		}
 		/**
 		 * Searches for the greatest value in an int array. <br />
@@ -59,6 +117,9 @@ class MaxIntTask extends RecursiveTask<Integer> {
 		public Integer max() {
 			int len = end - start + 1;
 			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
 				int max = array[start];
 				for(int i = start + 1; i <= end; i++) {
 					if(max < array[i]) {
@@ -68,10 +129,14 @@ class MaxIntTask extends RecursiveTask<Integer> {
 				return new Integer(max);
 			}
 			else {
-				int mid = (start + end) / 2;
+				cancellation.check();
+				int mid = SplitPolicy.ALIGNED.split(start, end + 1, Integer.BYTES) - 1;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
 				Integer leftMax, rightMax;
-				MaxIntTask left = new MaxIntTask(array, start, mid);
-				MaxIntTask right = new MaxIntTask(array, mid + 1, end);
+				MaxIntTask left = new MaxIntTask(array, start, mid, cancellation, listener, depth + 1);
+				MaxIntTask right = new MaxIntTask(array, mid + 1, end, cancellation, listener, depth + 1);
 				left.fork();
 				rightMax = right.compute();
 				leftMax = left.join();
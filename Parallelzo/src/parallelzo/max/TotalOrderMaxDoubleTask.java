@@ -0,0 +1,152 @@
+package parallelzo.max;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.DoubleOrder;
+import parallelzo.TaskListener;
+
+/**
+ * TotalOrderMaxDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that searches for the greatest value in a double array in the {@link parallelzo.DoubleOrder#TOTAL total order},
+ * and returns it. <br />
+ * -0.0 is smaller than 0.0, and NaN is greater than every other value,
+ * so NaN is returned if any of the values is NaN, unless NaNs are skipped,
+ * as in the {@link parallelzo.DoubleOrder#SKIP_NAN SKIP_NAN} order. <br />
+ * The values are compared by their {@link parallelzo.DoubleOrder#key(double) keys}. <br />
+ * The search is parallel if the array length is greater then 10,000 elements. <br />
+ * Recommended use: when array length is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class TotalOrderMaxDoubleTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Minimum length of array to make new tasks
+		 */
+		private static final int MINLEN = 10000;
+		/**
+		 * The array to search in
+		 */
+		private final double[] array;
+		/**
+		 * Starting index of searching range
+		 */
+		private final int start;
+		/**
+		 * Ending index of searching range
+		 */
+		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
+		/**
+		 * Whether NaNs are skipped
+		 */
+		private final boolean skipNaN;
+		/**
+		 * Key of the greatest value, once the task is done,
+		 * {@link java.lang.Long#MIN_VALUE} if all of the values are skipped NaNs
+		 */
+		private long maxKey;
+
+		/**
+		 * Creates a searching task for the greatest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to search in
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param skipNaN	true to skip NaNs
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public TotalOrderMaxDoubleTask(double[] array, int start, int end, boolean skipNaN, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, skipNaN, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the greatest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to search in
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param skipNaN	true to skip NaNs
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private TotalOrderMaxDoubleTask(double[] array, int start, int end, boolean skipNaN, Cancellation cancellation, TaskListener listener, int depth) {
+			this.array = array;
+			this.start = start;
+			this.end = end;
+			this.skipNaN = skipNaN;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
+		}
+		/**
+		 * Creates a searching task for the greatest value in a double array.
+		 * @param array		The Array to search in
+		 * @param skipNaN	true to skip NaNs
+		 */
+		public TotalOrderMaxDoubleTask(double[] array, boolean skipNaN) {
+			this(array, 0, array.length - 1, skipNaN, new Cancellation(), null, 0);
+		}
+		/**
+		 * Searches for the key of the greatest value in a double array. <br />
+		 * the length of the search range decides whether to make new tasks(adding them to the thread pool),
+		 * or to search in them on the current thread.
+		 * @return	Key of the greatest element between <code>start</code> and <code>end</code> in the array
+		 */
+		private long maxKey() {
+			int len = end - start + 1;
+			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
+				long max = Long.MIN_VALUE;
+				if(skipNaN) {
+					for(int i = start; i <= end; i++) {
+						long key = DoubleOrder.key(array[i]);
+						max = Math.max(max, (key == DoubleOrder.NAN_KEY) ? Long.MIN_VALUE : key);
+					}
+				}
+				else {
+					for(int i = start; i <= end; i++) {
+						max = Math.max(max, DoubleOrder.key(array[i]));
+					}
+				}
+				return max;
+			}
+			else {
+				cancellation.check();
+				int mid = (start + end) / 2;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
+				TotalOrderMaxDoubleTask left = new TotalOrderMaxDoubleTask(array, start, mid, skipNaN, cancellation, listener, depth + 1);
+				TotalOrderMaxDoubleTask right = new TotalOrderMaxDoubleTask(array, mid + 1, end, skipNaN, cancellation, listener, depth + 1);
+				left.fork();
+				long rightMax = right.maxKey();
+				left.join();
+				return Math.max(left.maxKey, rightMax);
+			}
+		}
+		/**
+		 * Starts the search process.
+		 * @return Greatest element between <code>start</code> and <code>end</code> in the array
+		 */
+		@Override
+		protected Double compute() {
+			maxKey = maxKey();
+			return (maxKey == Long.MIN_VALUE) ? Double.NaN : DoubleOrder.value(maxKey);
+		}
+	}
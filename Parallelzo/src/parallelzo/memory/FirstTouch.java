@@ -0,0 +1,187 @@
+package parallelzo.memory;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+import parallelzo.ParallelExecutor;
+
+/**
+ * FirstTouch initializes the elements of large arrays in parallel, on the threads of an executor. <br />
+ * The operating system places a page of memory on the memory node of the thread that first writes it,
+ * and, with automatic NUMA balancing, moves pages to the node of the threads that use them most.
+ * The helpers divide the array with the {@link SplitPolicy#ALIGNED ALIGNED} policy and the same leaf lengths
+ * as the reduction tasks, so that the values of the array are written by the threads of the pool that later
+ * reduces it, in the same index-aligned chunks.
+ * The chunks are aligned by index, not by address, so a page at the boundary of two chunks may be written
+ * by two threads, and work stealing may give a chunk to another thread of the pool the second time. <br />
+ * The JVM clears a new array on the thread that creates it, which is the first touch of its pages, so the
+ * helpers do not decide where the pages of a new array are placed: they only make the pool threads the main
+ * users of the pages, for automatic NUMA balancing to move them. Where the JVM allocates the array depends on
+ * the JVM: see <code>-XX:+UseNUMA</code>. <br />
+ * Recommended use: for arrays of millions of elements, on machines with more than one memory node.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class FirstTouch {
+	/**
+	 * Minimum length of a range of the array required to make new tasks
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * Number of ranges to divide the array into for every pool thread
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+
+	private FirstTouch() {
+	}
+
+	/**
+	 * Sets every element of an int array to the value of <code>generator</code> at its index.
+	 * @param executor		The executor to initialize the array on
+	 * @param array			The array to initialize
+	 * @param generator		Value of every index
+	 */
+	public static void setAll(ParallelExecutor executor, int[] array, IntUnaryOperator generator) {
+		setAll(executor, array, 0, array.length, generator);
+	}
+
+	/**
+	 * Sets every element of a range of an int array to the value of <code>generator</code> at its index.
+	 * @param executor		The executor to initialize the array on
+	 * @param array			The array to initialize
+	 * @param from			First index of the range
+	 * @param to			Index after the last index of the range
+	 * @param generator		Value of every index
+	 */
+	public static void setAll(ParallelExecutor executor, final int[] array, int from, int to,
+			final IntUnaryOperator generator) {
+		run(executor, from, to, Integer.BYTES, new RangeAction() {
+			@Override
+			public void run(int lo, int hi) {
+				for(int i = lo; i < hi; i++) {
+					array[i] = generator.applyAsInt(i);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets every element of a long array to the value of <code>generator</code> at its index.
+	 * @param executor		The executor to initialize the array on
+	 * @param array			The array to initialize
+	 * @param generator		Value of every index
+	 */
+	public static void setAll(ParallelExecutor executor, final long[] array, final IntToLongFunction generator) {
+		run(executor, 0, array.length, Long.BYTES, new RangeAction() {
+			@Override
+			public void run(int lo, int hi) {
+				for(int i = lo; i < hi; i++) {
+					array[i] = generator.applyAsLong(i);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sets every element of a double array to the value of <code>generator</code> at its index.
+	 * @param executor		The executor to initialize the array on
+	 * @param array			The array to initialize
+	 * @param generator		Value of every index
+	 */
+	public static void setAll(ParallelExecutor executor, final double[] array, final DoubleUnaryOperator generator) {
+		run(executor, 0, array.length, Double.BYTES, new RangeAction() {
+			@Override
+			public void run(int lo, int hi) {
+				for(int i = lo; i < hi; i++) {
+					array[i] = generator.applyAsDouble(i);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Runs an action over a range of an array, divided between the threads of an executor.
+	 * @param executor		The executor to run the action on
+	 * @param from			First index of the range
+	 * @param to			Index after the last index of the range
+	 * @param elementBytes	Length of an element of the array, in bytes
+	 * @param action		The action to run over every leaf
+	 */
+	private static void run(ParallelExecutor executor, int from, int to, int elementBytes, RangeAction action) {
+		if(to - from < MINLEN) {
+			action.run(from, to);
+			return;
+		}
+		int threads = executor.getBackend().getParallelism();
+		int leaf = Math.max(MINLEN, (to - from) / (threads * RANGES_PER_THREAD) + 1);
+		executor.getBackend().invoke(new RangeTask(action, from, to, elementBytes, leaf));
+	}
+
+	/**
+	 * An action over a range of an array.
+	 */
+	private interface RangeAction {
+		/**
+		 * Runs the action over a range.
+		 * @param lo	First index of the range
+		 * @param hi	Index after the last index of the range
+		 */
+		void run(int lo, int hi);
+	}
+
+	/**
+	 * Divides a range of an array, and runs an action over every leaf.
+	 */
+	private static class RangeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The action to run over every leaf
+		 */
+		private final RangeAction action;
+		/**
+		 * First index of the range
+		 */
+		private final int lo;
+		/**
+		 * Index after the last index of the range
+		 */
+		private final int hi;
+		/**
+		 * Length of an element of the array, in bytes
+		 */
+		private final int elementBytes;
+		/**
+		 * Length of a range below which it is not divided
+		 */
+		private final int leaf;
+
+		/**
+		 * Creates a task that runs an action over a range of an array.
+		 * @param action		The action to run over every leaf
+		 * @param lo			First index of the range
+		 * @param hi			Index after the last index of the range
+		 * @param elementBytes	Length of an element of the array, in bytes
+		 * @param leaf			Length of a range below which it is not divided
+		 */
+		RangeTask(RangeAction action, int lo, int hi, int elementBytes, int leaf) {
+			this.action = action;
+			this.lo = lo;
+			this.hi = hi;
+			this.elementBytes = elementBytes;
+			this.leaf = leaf;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo >= leaf) {
+				int mid = SplitPolicy.ALIGNED.split(lo, hi, elementBytes);
+				invokeAll(new RangeTask(action, lo, mid, elementBytes, leaf),
+				new RangeTask(action, mid, hi, elementBytes, leaf));
+				return;
+			}
+			action.run(lo, hi);
+		}
+	}
+}
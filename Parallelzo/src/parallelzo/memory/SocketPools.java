@@ -0,0 +1,203 @@
+package parallelzo.memory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntUnaryOperator;
+
+import parallelzo.ParallelExecutor;
+import parallelzo.max.MaxIntTask;
+import parallelzo.min.MinIntTask;
+
+/**
+ * SocketPools keeps one pool of threads for every memory node (socket) of the machine, without affinity,
+ * and divides large arrays into one index-aligned segment per node. <br />
+ * Every segment is always initialized and processed by the pool of its node, and the threads of a pool
+ * never steal work of another segment, so every segment is touched by a single group of threads.
+ * The results of the segments are combined at the end. <br />
+ * The pools are not pinned: Java cannot bind threads to the processors of a node, so the operating system
+ * may run the threads of any pool on any socket, and work and memory accesses may still cross sockets.
+ * The pools only give the scheduler and automatic NUMA balancing the chance to keep every group of threads
+ * near the pages it {@link FirstTouch first touched}.
+ * For a strict binding, start one JVM per node with <code>numactl</code>, and use a single pool in each. <br />
+ * Recommended use: for arrays of many millions of elements, on machines with more than one memory node.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class SocketPools {
+	/**
+	 * File listing the memory nodes of the machine on Linux
+	 */
+	private static final Path NODES = Paths.get("/sys/devices/system/node/online");
+	/**
+	 * One executor for every memory node
+	 */
+	private final ParallelExecutor[] executors;
+
+	/**
+	 * Creates one pool, without affinity, for every memory node, and divides the available processors between them.
+	 * @param sockets	Number of memory nodes
+	 */
+	public SocketPools(int sockets) {
+		if(sockets < 1) {
+			throw new IllegalArgumentException("sockets must be positive: " + sockets);
+		}
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / sockets);
+		executors = new ParallelExecutor[sockets];
+		for(int i = 0; i < sockets; i++) {
+			executors[i] = ParallelExecutor.using(new ForkJoinPool(threads));
+		}
+	}
+
+	/**
+	 * Creates one pool for every memory node listed by the operating system,
+	 * or a single pool if the nodes cannot be listed.
+	 * @return	Pools of the memory nodes of the machine
+	 */
+	public static SocketPools detect() {
+		return new SocketPools(nodes());
+	}
+
+	/**
+	 * Counts the memory nodes listed by Linux, in the form <code>0-1,3</code>.
+	 * @return	Number of memory nodes, or 1 if they cannot be listed
+	 */
+	private static int nodes() {
+		try {
+			String list = new String(Files.readAllBytes(NODES), StandardCharsets.US_ASCII).trim();
+			int count = 0;
+			for(String range : list.split(",")) {
+				int dash = range.indexOf('-');
+				count += (dash < 0) ? 1
+						: Integer.parseInt(range.substring(dash + 1)) - Integer.parseInt(range.substring(0, dash)) + 1;
+			}
+			return Math.max(1, count);
+		}
+		catch(IOException | RuntimeException e) {
+			return 1;
+		}
+	}
+
+	/**
+	 * @return	Number of memory nodes, and of pools
+	 */
+	public int getSockets() {
+		return executors.length;
+	}
+
+	/**
+	 * @param socket	Index of a memory node
+	 * @return	The executor of the pool of the node
+	 */
+	public ParallelExecutor executor(int socket) {
+		return executors[socket];
+	}
+
+	/**
+	 * Returns the boundaries of the segments of an array, one for every memory node.
+	 * @param length		Length of the array
+	 * @param elementBytes	Length of an element of the array, in bytes
+	 * @return	<code>getSockets() + 1</code> indexes, the first 0 and the last <code>length</code>
+	 */
+	public int[] segments(int length, int elementBytes) {
+		return SplitPolicy.ALIGNED.segments(length, executors.length, elementBytes);
+	}
+
+	/**
+	 * Sets every element of an int array to the value of <code>generator</code> at its index,
+	 * every segment on the pool of its node.
+	 * @param array			The array to initialize
+	 * @param generator		Value of every index
+	 */
+	public void setAll(final int[] array, final IntUnaryOperator generator) {
+		final int[] bounds = segments(array.length, Integer.BYTES);
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[executors.length];
+		for(int i = 0; i < executors.length; i++) {
+			final ParallelExecutor executor = executors[i];
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			tasks[i] = executor.getPool().submit(new Runnable() {
+				@Override
+				public void run() {
+					FirstTouch.setAll(executor, array, from, to, generator);
+				}
+			});
+		}
+		for(ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	/**
+	 * Searches for the smallest value in an int array, every segment on the pool of its node.
+	 * @param array		The Array to search in
+	 * @return	Smallest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public int min(int[] array) {
+		int[] bounds = segments(requireElements(array).length, Integer.BYTES);
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[executors.length];
+		for(int i = 0; i < executors.length; i++) {
+			if(bounds[i] < bounds[i + 1]) {
+				tasks[i] = executors[i].getPool().submit(new MinIntTask(array, bounds[i], bounds[i + 1] - 1));
+			}
+		}
+		int min = Integer.MAX_VALUE;
+		for(ForkJoinTask<?> task : tasks) {
+			if(task != null) {
+				min = Math.min(min, (Integer) task.join());
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * Searches for the greatest value in an int array, every segment on the pool of its node.
+	 * @param array		The Array to search in
+	 * @return	Greatest element in the array
+	 * @throws NoSuchElementException	if the array is empty
+	 */
+	public int max(int[] array) {
+		int[] bounds = segments(requireElements(array).length, Integer.BYTES);
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[executors.length];
+		for(int i = 0; i < executors.length; i++) {
+			if(bounds[i] < bounds[i + 1]) {
+				tasks[i] = executors[i].getPool().submit(new MaxIntTask(array, bounds[i], bounds[i + 1] - 1));
+			}
+		}
+		int max = Integer.MIN_VALUE;
+		for(ForkJoinTask<?> task : tasks) {
+			if(task != null) {
+				max = Math.max(max, (Integer) task.join());
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Throws {@link java.util.NoSuchElementException NoSuchElementException}
+	 * if a search is requested on an empty array.
+	 * @param array		The array to search in
+	 * @return	The array
+	 */
+	private static int[] requireElements(int[] array) {
+		if(array.length == 0) {
+			throw new NoSuchElementException("empty array");
+		}
+		return array;
+	}
+
+	/**
+	 * Stops the threads of all of the pools, once they have finished their work.
+	 */
+	public void shutdown() {
+		for(ParallelExecutor executor : executors) {
+			executor.getPool().shutdown();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package parallelzo.memory;
+
+/**
+ * SplitPolicy chooses the index at which a task divides a range of a primitive array. <br />
+ * The {@link #ALIGNED} policy moves the middle of the range to the nearest index that is a multiple
+ * of the elements of a page, for ranges that span many pages, or of a cache line otherwise,
+ * counted from index 0, which divides the array into index-aligned chunks. <br />
+ * The chunks are aligned by index, not by memory address: the elements start after the header of
+ * the array object, wherever the JVM placed it, and a collection may move it. So two neighbouring
+ * chunks may still share a cache line or a page at their common boundary, but not more than one,
+ * and operations that split the same array split it into the same chunks. <br />
+ * When the aligned index would leave one of the two parts empty, the plain middle is used.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class SplitPolicy {
+	/**
+	 * Length of a cache line of most processors, in bytes
+	 */
+	public static final int CACHE_LINE_BYTES = 64;
+	/**
+	 * Length of a page of most operating systems, in bytes
+	 */
+	public static final int PAGE_BYTES = 4096;
+	/**
+	 * Number of pages a range has to span to be divided at a page boundary
+	 */
+	private static final int MIN_PAGES = 16;
+	/**
+	 * Policy that divides ranges at their plain middle
+	 */
+	public static final SplitPolicy MIDPOINT = new SplitPolicy(1, 1);
+	/**
+	 * Policy that divides ranges at indexes aligned to the cache line and page lengths of most machines
+	 */
+	public static final SplitPolicy ALIGNED = new SplitPolicy(CACHE_LINE_BYTES, PAGE_BYTES);
+	/**
+	 * Length of a cache line, in bytes
+	 */
+	private final int lineBytes;
+	/**
+	 * Length of a page, in bytes
+	 */
+	private final int pageBytes;
+
+	/**
+	 * Creates a policy for machines of other cache line or page lengths,
+	 * for example 128 byte lines, or 2 MB huge pages.
+	 * @param lineBytes		Length of a cache line, in bytes, a power of two
+	 * @param pageBytes		Length of a page, in bytes, a power of two not smaller than <code>lineBytes</code>
+	 */
+	public SplitPolicy(int lineBytes, int pageBytes) {
+		if(Integer.bitCount(lineBytes) != 1 || Integer.bitCount(pageBytes) != 1 || pageBytes < lineBytes) {
+			throw new IllegalArgumentException("invalid line and page lengths: " + lineBytes + ", " + pageBytes);
+		}
+		this.lineBytes = lineBytes;
+		this.pageBytes = pageBytes;
+	}
+
+	/**
+	 * Chooses the index that divides the range from <code>start</code> up to <code>end</code> (exclusive)
+	 * into two parts of about the same length.
+	 * @param start			First index of the range
+	 * @param end			Index after the last index of the range
+	 * @param elementBytes	Length of an element of the array, in bytes
+	 * @return	The first index of the second part, greater than <code>start</code>
+	 * 			and smaller than <code>end</code> if the range has two elements or more
+	 */
+	public int split(int start, int end, int elementBytes) {
+		int mid = (start + end) >>> 1;
+		long bytes = (long) (end - start) * elementBytes;
+		int alignment = (bytes >= (long) MIN_PAGES * pageBytes) ? pageBytes : lineBytes;
+		int block = alignment / elementBytes;
+		if(block <= 1) {
+			return mid;
+		}
+		int aligned = (mid + (block >>> 1)) & -block;
+		return (aligned > start && aligned < end) ? aligned : mid;
+	}
+
+	/**
+	 * Returns the boundaries of <code>parts</code> ranges of about the same length that cover an array,
+	 * at indexes aligned to the elements of a page.
+	 * @param length		Length of the array
+	 * @param parts			Number of ranges
+	 * @param elementBytes	Length of an element of the array, in bytes
+	 * @return	<code>parts + 1</code> indexes, the first 0 and the last <code>length</code>
+	 */
+	public int[] segments(int length, int parts, int elementBytes) {
+		int[] bounds = new int[parts + 1];
+		int block = Math.max(1, pageBytes / elementBytes);
+		for(int i = 1; i < parts; i++) {
+			long target = (long) length * i / parts;
+			int aligned = (int) Math.min(length, (target + (block >>> 1)) & -block);
+			bounds[i] = Math.max(bounds[i - 1], aligned);
+		}
+		bounds[parts] = length;
+		return bounds;
+	}
+}
@@ -0,0 +1,127 @@
+package parallelzo.metrics;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import parallelzo.TaskListener;
+
+/**
+ * JfrTaskListener is a {@link parallelzo.TaskListener TaskListener} that emits
+ * the events of the tasks as Java Flight Recorder events, under the
+ * <code>Parallelzo</code> category. <br />
+ * Each event type can be enabled separately in the recording settings,
+ * and a disabled event type costs a single check per event.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class JfrTaskListener implements TaskListener {
+
+	@Override
+	public void split(int depth, int leftLength, int rightLength) {
+		SplitEvent event = new SplitEvent();
+		if(event.shouldCommit()) {
+			event.depth = depth;
+			event.leftLength = leftLength;
+			event.rightLength = rightLength;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void leaf(int depth, int length) {
+		LeafEvent event = new LeafEvent();
+		if(event.shouldCommit()) {
+			event.depth = depth;
+			event.length = length;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void partition(int depth, int length, long nanos) {
+		PartitionEvent event = new PartitionEvent();
+		if(event.shouldCommit()) {
+			event.depth = depth;
+			event.length = length;
+			event.nanos = nanos;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void completed(int length, long nanos, long steals) {
+		OperationEvent event = new OperationEvent();
+		if(event.shouldCommit()) {
+			event.length = length;
+			event.nanos = nanos;
+			event.steals = steals;
+			event.commit();
+		}
+	}
+
+	/**
+	 * A range divided into two new tasks
+	 */
+	@Name("parallelzo.Split")
+	@Label("Task Split")
+	@Category("Parallelzo")
+	static class SplitEvent extends Event {
+		@Label("Depth")
+		int depth;
+		@Label("Left Length")
+		@Description("Number of elements in the left subrange")
+		int leftLength;
+		@Label("Right Length")
+		@Description("Number of elements in the right subrange")
+		int rightLength;
+	}
+
+	/**
+	 * A range processed without dividing it
+	 */
+	@Name("parallelzo.Leaf")
+	@Label("Task Leaf")
+	@Category("Parallelzo")
+	static class LeafEvent extends Event {
+		@Label("Depth")
+		int depth;
+		@Label("Length")
+		int length;
+	}
+
+	/**
+	 * A range partitioned by a sort task before dividing it
+	 */
+	@Name("parallelzo.Partition")
+	@Label("Partition")
+	@Category("Parallelzo")
+	static class PartitionEvent extends Event {
+		@Label("Depth")
+		int depth;
+		@Label("Length")
+		int length;
+		@Label("Partition Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long nanos;
+	}
+
+	/**
+	 * A completed operation of {@link parallelzo.ParallelExecutor ParallelExecutor}
+	 */
+	@Name("parallelzo.Operation")
+	@Label("Operation")
+	@Category("Parallelzo")
+	static class OperationEvent extends Event {
+		@Label("Length")
+		int length;
+		@Label("Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long nanos;
+		@Label("Pool Steals")
+		long steals;
+	}
+}
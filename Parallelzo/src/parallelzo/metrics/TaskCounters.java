@@ -0,0 +1,126 @@
+package parallelzo.metrics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import parallelzo.TaskListener;
+
+/**
+ * TaskCounters is a {@link parallelzo.TaskListener TaskListener} that keeps
+ * counters of the events of the tasks, in the manner of a metrics registry. <br />
+ * Counters are striped ({@link java.util.concurrent.atomic.LongAdder LongAdder}),
+ * so the pool threads do not contend on them. <br />
+ * {@link #snapshot()} returns the counters by dotted name, ready to be
+ * published as gauges or counters to any metrics system.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class TaskCounters implements TaskListener {
+	/**
+	 * Number of ranges divided into two new tasks
+	 */
+	private final LongAdder splits = new LongAdder();
+	/**
+	 * Sum of the differences between the lengths of the left and right subranges
+	 */
+	private final LongAdder splitSkew = new LongAdder();
+	/**
+	 * Sum of the lengths of the divided ranges
+	 */
+	private final LongAdder splitElements = new LongAdder();
+	/**
+	 * Number of ranges processed without dividing them
+	 */
+	private final LongAdder leaves = new LongAdder();
+	/**
+	 * Sum of the lengths of the leaf ranges
+	 */
+	private final LongAdder leafElements = new LongAdder();
+	/**
+	 * Greatest depth reached by a task
+	 */
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+	/**
+	 * Time spent partitioning ranges before dividing them, in nanoseconds
+	 */
+	private final LongAdder partitionNanos = new LongAdder();
+	/**
+	 * Number of completed operations
+	 */
+	private final LongAdder operations = new LongAdder();
+	/**
+	 * Time spent on completed operations, in nanoseconds
+	 */
+	private final LongAdder operationNanos = new LongAdder();
+	/**
+	 * Steals of the pools during completed operations
+	 */
+	private final LongAdder steals = new LongAdder();
+
+	@Override
+	public void split(int depth, int leftLength, int rightLength) {
+		splits.increment();
+		splitSkew.add(Math.abs(leftLength - rightLength));
+		splitElements.add((long) leftLength + rightLength);
+		maxDepth.accumulate(depth);
+	}
+
+	@Override
+	public void leaf(int depth, int length) {
+		leaves.increment();
+		leafElements.add(length);
+		maxDepth.accumulate(depth);
+	}
+
+	@Override
+	public void partition(int depth, int length, long nanos) {
+		partitionNanos.add(nanos);
+	}
+
+	@Override
+	public void completed(int length, long nanos, long steals) {
+		operations.increment();
+		operationNanos.add(nanos);
+		this.steals.add(steals);
+	}
+
+	/**
+	 * Returns the current values of the counters. <br />
+	 * <code>parallelzo.split.skew</code> is the sum of the length differences between the
+	 * two sides of each split, and divided by <code>parallelzo.split.elements</code>
+	 * it gives the average imbalance of the splits, from 0 (even) to 1 (one side empty).
+	 * @return	Counter values by name, in a stable order
+	 */
+	public Map<String, Long> snapshot() {
+		Map<String, Long> values = new LinkedHashMap<String, Long>();
+		values.put("parallelzo.split.count", splits.sum());
+		values.put("parallelzo.split.skew", splitSkew.sum());
+		values.put("parallelzo.split.elements", splitElements.sum());
+		values.put("parallelzo.leaf.count", leaves.sum());
+		values.put("parallelzo.leaf.elements", leafElements.sum());
+		values.put("parallelzo.depth.max", maxDepth.get());
+		values.put("parallelzo.partition.nanos", partitionNanos.sum());
+		values.put("parallelzo.operation.count", operations.sum());
+		values.put("parallelzo.operation.nanos", operationNanos.sum());
+		values.put("parallelzo.pool.steals", steals.sum());
+		return values;
+	}
+
+	/**
+	 * Sets all of the counters back to zero.
+	 */
+	public void reset() {
+		splits.reset();
+		splitSkew.reset();
+		splitElements.reset();
+		leaves.reset();
+		leafElements.reset();
+		maxDepth.reset();
+		partitionNanos.reset();
+		operations.reset();
+		operationNanos.reset();
+		steals.reset();
+	}
+}
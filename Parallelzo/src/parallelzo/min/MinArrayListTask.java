@@ -2,6 +2,9 @@ package parallelzo.min;
 import java.util.ArrayList;
 import java.util.concurrent.RecursiveTask;
 
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+
 /**
  * MinArrayListTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that searches for the smallest value in a generic ArrayList, and returns it. <br />
@@ -11,7 +14,7 @@ import java.util.concurrent.RecursiveTask;
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
+public class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		private static final long serialVersionUID = 1L;
 		/**
 		 * Minimum length of array to make new tasks
@@ -29,6 +32,18 @@ class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		 * Ending index of searching range
 		 */
 		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
 		
 		/**
 		 * Creates a searching task for the smallest value in a generic ArrayList. <br />
@@ -38,9 +53,48 @@ class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		 * @param end		Ending index of searching range
 		 */
 		public MinArrayListTask(ArrayList<T> array, int start, int end) {
+			this(array, start, end, new Cancellation());
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic ArrayList. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The ArrayList to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		public MinArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation) {
+			this(array, start, end, cancellation, null);
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic ArrayList. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The ArrayList to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public MinArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic ArrayList. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The ArrayList to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private MinArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 			this.array = array;
 			this.start = start;
 			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
 		}
 		/**
 		 * Creates a searching task for the smallest value in a generic ArrayList.
@@ -50,6 +104,9 @@ class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 			this.array = array;
 			this.start = 0;
 			this.end = array.size() - 1;
+			this.cancellation = new Cancellation();
+			this.listener = null;
+			this.depth = 0;
 		}
 		/**
 		 * Searches for the smallest value in a generic ArrayList. <br />
@@ -60,6 +117,9 @@ class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		public T min() {
 			int len = end - start + 1;
 			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
 				T min = array.get(start);
 				for(int i = start + 1; i <= end; i++) {
 					if(min.compareTo(array.get(i)) > 0) {
@@ -69,10 +129,14 @@ class MinArrayListTask<T extends Comparable<T>> extends RecursiveTask<T> {
 				return min;
 			}
 			else {
+				cancellation.check();
 				int mid = (start + end) / 2;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
 				T leftMin, rightMin;
-				MinArrayListTask<T> left = new MinArrayListTask<T>(array, start, mid);
-				MinArrayListTask<T> right = new MinArrayListTask<T>(array, mid + 1, end);
+				MinArrayListTask<T> left = new MinArrayListTask<T>(array, start, mid, cancellation, listener, depth + 1);
+				MinArrayListTask<T> right = new MinArrayListTask<T>(array, mid + 1, end, cancellation, listener, depth + 1);
 				left.fork();
 				rightMin = right.compute();
 				leftMin = left.join();
@@ -1,6 +1,9 @@
 package parallelzo.min;
 import java.util.concurrent.RecursiveTask;
 
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+
 /**
  * MinArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that searches for the smallest value in a generic array, and returns it. <br />
@@ -10,7 +13,7 @@ import java.util.concurrent.RecursiveTask;
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
+public class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		private static final long serialVersionUID = 1L;
 		/**
 		 * Minimum length of array to make new tasks
@@ -28,6 +31,18 @@ class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		 * Ending index of searching range
 		 */
 		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
 		
 		/**
 		 * Creates a searching task for the smallest value in a generic array. <br />
@@ -37,9 +52,48 @@ class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		 * @param end		Ending index of searching range
 		 */
 		public MinArrayTask(T[] array, int start, int end) {
+			this(array, start, end, new Cancellation());
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		public MinArrayTask(T[] array, int start, int end, Cancellation cancellation) {
+			this(array, start, end, cancellation, null);
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public MinArrayTask(T[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the smallest value in a generic array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private MinArrayTask(T[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 			this.array = array;
 			this.start = start;
 			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
 		}
 		/**
 		 * Creates a searching task for the smallest value in a generic array.
@@ -49,6 +103,9 @@ class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 			this.array = array;
 			this.start = 0;
 			this.end = array.length - 1;
+			this.cancellation = new Cancellation();
+			this.listener = null;
+			this.depth = 0;
 		}
 		/**
 		 * Searches for the smallest value in a generic array. <br />
@@ -59,6 +116,9 @@ class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 		public T min() {
 			int len = end - start + 1;
 			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
 				T min = array[start];
 				for(int i = start + 1; i <= end; i++) {
 					if(min.compareTo(array[i]) > 0) {
@@ -68,10 +128,14 @@ class MinArrayTask<T extends Comparable<T>> extends RecursiveTask<T> {
 				return min;
 			}
 			else {
+				cancellation.check();
 				int mid = (start + end) / 2;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
 				T leftMin, rightMin;
-				MinArrayTask<T> left = new MinArrayTask<T>(array, start, mid);
-				MinArrayTask<T> right = new MinArrayTask<T>(array, mid + 1, end);
+				MinArrayTask<T> left = new MinArrayTask<T>(array, start, mid, cancellation, listener, depth + 1);
+				MinArrayTask<T> right = new MinArrayTask<T>(array, mid + 1, end, cancellation, listener, depth + 1);
 				left.fork();
 				rightMin = right.compute();
 				leftMin = left.join();
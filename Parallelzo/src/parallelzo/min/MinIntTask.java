@@ -1,21 +1,34 @@
 package parallelzo.min;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+import parallelzo.memory.SplitPolicy;
 
 /**
  * MinIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that searches for the smallest value in an int Array, and returns it. <br />
  * The search is parallel if the array length is greater then 10,000 elements. <br />
+ * Every split forks a task for one half of the range, and continues with the other half in the same task,
+ * so a split allocates a single task, and the results are combined as the tasks complete,
+ * without threads waiting on joins. The array is divided into about four ranges per pool thread,
+ * and never into ranges shorter than 10,000 elements. <br />
  * Recommended use: when array length is greater then 500,000 elements. 
  * 
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-class MinIntTask extends RecursiveTask<Integer> {
+public class MinIntTask extends CountedCompleter<Integer> {
 		private static final long serialVersionUID = 1L;
 		/**
 		 * Minimum length of array to make new tasks
 		 */
 		private static final int MINLEN = 10000;
+		/**
+		 * Number of ranges to divide the array into for every pool thread
+		 */
+		private static final int RANGES_PER_THREAD = 4;
 		/**
 		 * The array to search in
 		 */
@@ -28,6 +41,35 @@ class MinIntTask extends RecursiveTask<Integer> {
 		 * Ending index of searching range
 		 */
 		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
+		/**
+		 * Length of range below which it is searched on the current thread,
+		 * or 0 if not decided yet
+		 */
+		private final int leafLength;
+		/**
+		 * The next task forked by the same task as this task
+		 */
+		private final MinIntTask next;
+		/**
+		 * Tasks forked by this task whose results are not combined yet
+		 */
+		private MinIntTask forks;
+		/**
+		 * Smallest element of the range, once the task is done
+		 */
+		private int result;
 		
 		/**
 		 * Creates a searching task for the smallest value in an int array. <br />
@@ -37,53 +79,122 @@ class MinIntTask extends RecursiveTask<Integer> {
 		 * @param end		Ending index of searching range
 		 */
 		public MinIntTask(int[] array, int start, int end) {
+			this(array, start, end, new Cancellation());
+		}
+		/**
+		 * Creates a searching task for the smallest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		public MinIntTask(int[] array, int start, int end, Cancellation cancellation) {
+			this(array, start, end, cancellation, null);
+		}
+		/**
+		 * Creates a searching task for the smallest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public MinIntTask(int[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(null, null, array, start, end, cancellation, listener, 0, 0);
+		}
+		/**
+		 * Creates a searching task for the smallest value in an int array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param parent	The task that forked this task, or null
+		 * @param next		The next task forked by <code>parent</code>, or null
+		 * @param array		The Array to sort	
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 * @param leafLength	Length of range below which it is searched on the current thread, or 0
+		 */
+		private MinIntTask(MinIntTask parent, MinIntTask next, int[] array, int start, int end,
+				Cancellation cancellation, TaskListener listener, int depth, int leafLength) {
+			super(parent);
 			this.array = array;
 			this.start = start;
 			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
+			this.leafLength = leafLength;
+			this.next = next;
 		}
 		/**
 		 * Creates a searching task for the smallest value in an int array.
 		 * @param array		The Array to sort	
 		 */
 		public MinIntTask(int[] array) {
-			this.array = array;
-			this.start = 0;
-			this.end = array.length - 1;
+			this(null, null, array, 0, array.length - 1, new Cancellation(), null, 0, 0);
 		}
 		/**
-		 * Searches for the smallest value in an int array. <br />
-		 * the length of the search range decides whether to make new tasks(adding them to the thread pool),
-		 * or to search in them on the current thread.
-		 * @return	Smallest element between <code>start</code> and </end> in the array 
+		 * Searches for the smallest value in an int array.
+		 * @return	Smallest element between <code>start</code> and <code>end</code> in the array
 		 */
 		public Integer min() {
-			int len = end - start + 1;
-			if(len < MINLEN) {
-				int min = array[start];
-				for(int i = start + 1; i <= end; i++) {
-					if(min > array[i]) {
-						min = array[i];
-					}
+			return invoke();
+		}
+		/**
+		 * Searches for the smallest value in an int array. <br />
+		 * While the search range is not shorter than the leaf length, its upper half is forked
+		 * as a new task (adding it to the thread pool), and the search goes on with its lower half.
+		 * The rest of the range is searched on the current thread, and the results of the forked tasks
+		 * are combined by whichever thread completes the last of them.
+		 */
+		@Override
+		public void compute() {
+			int leaf = leafLength;
+			if(leaf == 0) {
+				ForkJoinPool pool = getPool();
+				int threads = (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+				leaf = Math.max(MINLEN, (end - start + 1) / (threads * RANGES_PER_THREAD) + 1);
+			}
+			int lo = start;
+			int hi = end;
+			int level = depth;
+			while(hi - lo + 1 >= leaf) {
+				cancellation.check();
+				int mid = SplitPolicy.ALIGNED.split(lo, hi + 1, Integer.BYTES) - 1;
+				if(listener != null) {
+					listener.split(level, mid - lo + 1, hi - mid);
+				}
+				level++;
+				addToPendingCount(1);
+				forks = new MinIntTask(this, forks, array, mid + 1, hi, cancellation, listener, level, leaf);
+				forks.fork();
+				hi = mid;
+			}
+			if(listener != null) {
+				listener.leaf(level, hi - lo + 1);
+			}
+			int min = array[lo];
+			for(int i = lo + 1; i <= hi; i++) {
+				if(min > array[i]) {
+					min = array[i];
 				}
-				return new Integer(min);
 			}
-			else {
-				int mid = (start + end) / 2;
-				Integer leftMin, rightMin;
-				MinIntTask left = new MinIntTask(array, start, mid);
-				MinIntTask right = new MinIntTask(array, mid + 1, end);
-				left.fork();
-				rightMin = right.compute();
-				leftMin = left.join();
-				return (leftMin.compareTo(rightMin) <= 0) ? leftMin : rightMin;
+			result = min;
+			for(CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+				MinIntTask task = (MinIntTask) c;
+				for(MinIntTask forked = task.forks; forked != null; forked = task.forks = forked.next) {
+					task.result = Math.min(task.result, forked.result);
+				}
 			}
 		}
 		/**
-		 * Starts the search process.
-		 * @return Smallest element between <code>start</code> and </end> in the array
+		 * @return Smallest element between <code>start</code> and <code>end</code> in the array
 		 */
 		@Override
-		protected Integer compute() {
-			return min();
+		public Integer getRawResult() {
+			return result;
 		}
 	}
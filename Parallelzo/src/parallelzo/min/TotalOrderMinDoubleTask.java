@@ -0,0 +1,134 @@
+package parallelzo.min;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+import parallelzo.DoubleOrder;
+import parallelzo.TaskListener;
+
+/**
+ * TotalOrderMinDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that searches for the smallest value in a double array in the {@link parallelzo.DoubleOrder#TOTAL total order},
+ * and returns it. <br />
+ * -0.0 is smaller than 0.0, and NaN is greater than every other value,
+ * so NaNs are skipped, and NaN is returned only if all of the values are NaN. <br />
+ * The values are compared by their {@link parallelzo.DoubleOrder#key(double) keys}. <br />
+ * The search is parallel if the array length is greater then 10,000 elements. <br />
+ * Recommended use: when array length is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class TotalOrderMinDoubleTask extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * Minimum length of array to make new tasks
+		 */
+		private static final int MINLEN = 10000;
+		/**
+		 * The array to search in
+		 */
+		private final double[] array;
+		/**
+		 * Starting index of searching range
+		 */
+		private final int start;
+		/**
+		 * Ending index of searching range
+		 */
+		private final int end;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+		/**
+		 * Listener of task events, or null if instrumentation is disabled
+		 */
+		private final TaskListener listener;
+		/**
+		 * Number of splits between this task and the task that started the operation
+		 */
+		private final int depth;
+		/**
+		 * Key of the smallest value, once the task is done
+		 */
+		private long minKey;
+
+		/**
+		 * Creates a searching task for the smallest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to search in
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 */
+		public TotalOrderMinDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+			this(array, start, end, cancellation, listener, 0);
+		}
+		/**
+		 * Creates a searching task for the smallest value in a double array. <br />
+		 * Searches the array from <code>start</code> up to <code>end</code>.
+		 * @param array		The Array to search in
+		 * @param start		Starting index of searching range
+		 * @param end		Ending index of searching range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 * @param listener	Listener of task events, or null to disable instrumentation
+		 * @param depth		Number of splits between this task and the task that started the operation
+		 */
+		private TotalOrderMinDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
+			this.array = array;
+			this.start = start;
+			this.end = end;
+			this.cancellation = cancellation;
+			this.listener = listener;
+			this.depth = depth;
+		}
+		/**
+		 * Creates a searching task for the smallest value in a double array.
+		 * @param array		The Array to search in
+		 */
+		public TotalOrderMinDoubleTask(double[] array) {
+			this(array, 0, array.length - 1, new Cancellation(), null, 0);
+		}
+		/**
+		 * Searches for the key of the smallest value in a double array. <br />
+		 * the length of the search range decides whether to make new tasks(adding them to the thread pool),
+		 * or to search in them on the current thread.
+		 * @return	Key of the smallest element between <code>start</code> and <code>end</code> in the array
+		 */
+		private long minKey() {
+			int len = end - start + 1;
+			if(len < MINLEN) {
+				if(listener != null) {
+					listener.leaf(depth, len);
+				}
+				long min = DoubleOrder.key(array[start]);
+				for(int i = start + 1; i <= end; i++) {
+					min = Math.min(min, DoubleOrder.key(array[i]));
+				}
+				return min;
+			}
+			else {
+				cancellation.check();
+				int mid = (start + end) / 2;
+				if(listener != null) {
+					listener.split(depth, mid - start + 1, end - mid);
+				}
+				TotalOrderMinDoubleTask left = new TotalOrderMinDoubleTask(array, start, mid, cancellation, listener, depth + 1);
+				TotalOrderMinDoubleTask right = new TotalOrderMinDoubleTask(array, mid + 1, end, cancellation, listener, depth + 1);
+				left.fork();
+				long rightMin = right.minKey();
+				left.join();
+				return Math.min(left.minKey, rightMin);
+			}
+		}
+		/**
+		 * Starts the search process.
+		 * @return Smallest element between <code>start</code> and <code>end</code> in the array
+		 */
+		@Override
+		protected Double compute() {
+			minKey = minKey();
+			return DoubleOrder.value(minKey);
+		}
+	}
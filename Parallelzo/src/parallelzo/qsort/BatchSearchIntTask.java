@@ -0,0 +1,294 @@
+package parallelzo.qsort;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+/**
+ * BatchSearchIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that searches a sorted int Array for many keys at once, and returns the lower bound
+ * (index of the first element not less than the key) or upper bound
+ * (index of the first element greater than the key) of every key. <br />
+ * The keys are sorted, divided into blocks, and each block is swept against the array
+ * in parallel like a merge: the first key of a block is found with a binary search,
+ * and every following key with an exponential search starting at the previous bound,
+ * so the array is read mostly forward. <br />
+ * Unsorted keys are copied and sorted with {@link QSortIntTask}, and the bounds
+ * are returned in the order of the given keys. <br />
+ * Recommended use: when there are more than 10,000 keys.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BatchSearchIntTask extends RecursiveTask<int[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum number of keys required to make new tasks
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * The sorted Array to search in
+	 */
+	private final int[] array;
+	/**
+	 * The keys to search for
+	 */
+	private final int[] keys;
+	/**
+	 * Whether the keys are already sorted in ascending order
+	 */
+	private final boolean keysSorted;
+	/**
+	 * true to search for upper bounds, false to search for lower bounds
+	 */
+	private final boolean upper;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that searches a sorted int Array for many keys.
+	 * @param array		The sorted Array to search in
+	 * @param keys		The keys to search for
+	 * @param upper		true to search for upper bounds, false to search for lower bounds
+	 */
+	public BatchSearchIntTask(int[] array, int[] keys, boolean upper) {
+		this(array, keys, false, upper, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that searches a sorted int Array for many keys.
+	 * @param array			The sorted Array to search in
+	 * @param keys			The keys to search for
+	 * @param keysSorted	true if the keys are already sorted in ascending order
+	 * @param upper			true to search for upper bounds, false to search for lower bounds
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public BatchSearchIntTask(int[] array, int[] keys, boolean keysSorted, boolean upper, Cancellation cancellation) {
+		this.array = array;
+		this.keys = keys;
+		this.keysSorted = keysSorted;
+		this.upper = upper;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Searches the array for all of the keys.
+	 * @return	The bound of every key, in the order of the given keys
+	 */
+	public int[] search() {
+		int[] sortedKeys = keys;
+		if(!keysSorted) {
+			sortedKeys = keys.clone();
+			new QSortIntTask(sortedKeys, 0, sortedKeys.length - 1, cancellation).invoke();
+		}
+		int[] bounds = new int[sortedKeys.length];
+		new SweepTask(array, sortedKeys, bounds, upper, 0, sortedKeys.length, cancellation).invoke();
+		if(keysSorted) {
+			return bounds;
+		}
+		int[] result = new int[keys.length];
+		new GatherTask(sortedKeys, bounds, keys, result, 0, keys.length, cancellation).invoke();
+		return result;
+	}
+
+	/**
+	 * Starts the search process.
+	 * @return	The bound of every key, in the order of the given keys
+	 */
+	@Override
+	protected int[] compute() {
+		return search();
+	}
+
+	/**
+	 * Returns the index of the first element in the range that is not before <code>key</code>,
+	 * or <code>to</code> if every element is before it.
+	 * @param array		The sorted Array to search in
+	 * @param from		Starting index of searching range
+	 * @param to		Index after the end of searching range
+	 * @param key		The key to search for
+	 * @param upper		true if elements equal to <code>key</code> are before it
+	 * @return	The bound of <code>key</code> in the range
+	 */
+	static int bound(int[] array, int from, int to, int key, boolean upper) {
+		while(from < to) {
+			int mid = (from + to) >>> 1;
+			if(array[mid] < key || (upper && array[mid] == key)) {
+				from = mid + 1;
+			}
+			else {
+				to = mid;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * Returns the bound of <code>key</code>, searching forward from <code>from</code>
+	 * with exponentially growing steps, then with a binary search. <br />
+	 * The steps are clamped to the end of the array, so they never overflow past it.
+	 * @param array		The sorted Array to search in
+	 * @param from		Index that every element before is known to be before <code>key</code>
+	 * @param key		The key to search for
+	 * @param upper		true if elements equal to <code>key</code> are before it
+	 * @return	The bound of <code>key</code> in the array
+	 */
+	static int gallop(int[] array, int from, int key, boolean upper) {
+		int lo = from;
+		int hi = from;
+		int step = 1;
+		while(hi < array.length && (array[hi] < key || (upper && array[hi] == key))) {
+			lo = hi + 1;
+			hi = (int) Math.min((long) hi + step, array.length);
+			step <<= 1;
+		}
+		return bound(array, lo, hi, key, upper);
+	}
+
+	/**
+	 * Finds the bounds of a range of sorted keys.
+	 */
+	private static class SweepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The sorted Array to search in
+		 */
+		private final int[] array;
+		/**
+		 * The sorted keys to search for
+		 */
+		private final int[] keys;
+		/**
+		 * The bound of every sorted key
+		 */
+		private final int[] bounds;
+		/**
+		 * true to search for upper bounds, false to search for lower bounds
+		 */
+		private final boolean upper;
+		/**
+		 * Index of the first key of the range
+		 */
+		private final int lo;
+		/**
+		 * Index after the last key of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		/**
+		 * Creates a task that finds the bounds of a range of sorted keys.
+		 * @param array			The sorted Array to search in
+		 * @param keys			The sorted keys to search for
+		 * @param bounds		The bound of every sorted key
+		 * @param upper			true to search for upper bounds, false to search for lower bounds
+		 * @param lo			Index of the first key of the range
+		 * @param hi			Index after the last key of the range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		SweepTask(int[] array, int[] keys, int[] bounds, boolean upper, int lo, int hi, Cancellation cancellation) {
+			this.array = array;
+			this.keys = keys;
+			this.bounds = bounds;
+			this.upper = upper;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo >= MINLEN) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new SweepTask(array, keys, bounds, upper, lo, mid, cancellation),
+				new SweepTask(array, keys, bounds, upper, mid, hi, cancellation));
+				return;
+			}
+			if(lo == hi) {
+				return;
+			}
+			int pos = bound(array, 0, array.length, keys[lo], upper);
+			bounds[lo] = pos;
+			for(int i = lo + 1; i < hi; i++) {
+				if(keys[i] != keys[i - 1]) {
+					pos = gallop(array, pos, keys[i], upper);
+				}
+				bounds[i] = pos;
+			}
+		}
+	}
+
+	/**
+	 * Copies the bounds of a range of unsorted keys from the bounds of the sorted keys.
+	 */
+	private static class GatherTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The keys, sorted
+		 */
+		private final int[] sortedKeys;
+		/**
+		 * The bound of every sorted key
+		 */
+		private final int[] bounds;
+		/**
+		 * The keys, in the given order
+		 */
+		private final int[] keys;
+		/**
+		 * The bound of every key, in the given order
+		 */
+		private final int[] result;
+		/**
+		 * Index of the first key of the range
+		 */
+		private final int lo;
+		/**
+		 * Index after the last key of the range
+		 */
+		private final int hi;
+		/**
+		 * Cancellation flag shared with the subtasks
+		 */
+		private final Cancellation cancellation;
+
+		/**
+		 * Creates a task that copies the bounds of a range of unsorted keys.
+		 * @param sortedKeys	The keys, sorted
+		 * @param bounds		The bound of every sorted key
+		 * @param keys			The keys, in the given order
+		 * @param result		The bound of every key, in the given order
+		 * @param lo			Index of the first key of the range
+		 * @param hi			Index after the last key of the range
+		 * @param cancellation	Cancellation flag shared with the subtasks
+		 */
+		GatherTask(int[] sortedKeys, int[] bounds, int[] keys, int[] result, int lo, int hi, Cancellation cancellation) {
+			this.sortedKeys = sortedKeys;
+			this.bounds = bounds;
+			this.keys = keys;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+			this.cancellation = cancellation;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo >= MINLEN) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new GatherTask(sortedKeys, bounds, keys, result, lo, mid, cancellation),
+				new GatherTask(sortedKeys, bounds, keys, result, mid, hi, cancellation));
+				return;
+			}
+			for(int i = lo; i < hi; i++) {
+				result[i] = bounds[bound(sortedKeys, 0, sortedKeys.length, keys[i], false)];
+			}
+		}
+	}
+}
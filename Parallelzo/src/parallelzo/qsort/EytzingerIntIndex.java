@@ -0,0 +1,230 @@
+package parallelzo.qsort;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.ParallelExecutor;
+
+/**
+ * EytzingerIntIndex is a copy of a sorted int Array in Eytzinger (breadth first) order,
+ * for answering many lower and upper bound searches. <br />
+ * The root of the implicit search tree is at index 1 and the children of index <code>k</code>
+ * are at <code>2k</code> and <code>2k + 1</code>, so the first levels of the tree,
+ * visited by every search, share a few cache lines, and the search loop has no
+ * unpredictable branches. <br />
+ * The index is built, and batches of keys are searched, in parallel, on the backend of the
+ * {@link parallelzo.ParallelExecutor ParallelExecutor} it was created with, or, without one,
+ * on the {@link java.util.concurrent.ForkJoinPool ForkJoinPool} of the calling thread,
+ * or on the common pool if the calling thread is not a pool thread. <br />
+ * Recommended use: when the array is searched many more times than its length divided by 100.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class EytzingerIntIndex {
+	/**
+	 * Minimum number of elements or keys required to make new tasks
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * The elements in Eytzinger order, starting at index 1
+	 */
+	private final int[] tree;
+	/**
+	 * Index in the sorted array of every element of the tree
+	 */
+	private final int[] ranks;
+	/**
+	 * Number of elements
+	 */
+	private final int length;
+	/**
+	 * Executor of the parallel tasks, or null to run them on the pool of the calling thread
+	 */
+	private final ParallelExecutor executor;
+
+	/**
+	 * Creates an index of a sorted int Array. The array is not modified.
+	 * @param array		The sorted Array to index
+	 */
+	public EytzingerIntIndex(int[] array) {
+		this(array, null);
+	}
+
+	/**
+	 * Creates an index of a sorted int Array, built and searched on an executor. The array is not modified.
+	 * @param array		The sorted Array to index
+	 * @param executor	Executor of the parallel tasks, or null to run them on the pool of the calling thread
+	 */
+	public EytzingerIntIndex(int[] array, ParallelExecutor executor) {
+		this.length = array.length;
+		this.tree = new int[length + 1];
+		this.ranks = new int[length + 1];
+		this.executor = executor;
+		run(new BuildTask(array, 1, 0), length);
+	}
+
+	/**
+	 * @return	Number of elements of the index
+	 */
+	public int size() {
+		return length;
+	}
+
+	/**
+	 * Returns the index, in the sorted array, of the first element not less than <code>key</code>.
+	 * @param key	The key to search for
+	 * @return	Lower bound of <code>key</code>, or the array length if every element is less than it
+	 */
+	public int lowerBound(int key) {
+		int k = 1;
+		while(k <= length) {
+			k = 2 * k + (tree[k] < key ? 1 : 0);
+		}
+		k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+		return (k == 0) ? length : ranks[k];
+	}
+
+	/**
+	 * Returns the index, in the sorted array, of the first element greater than <code>key</code>.
+	 * @param key	The key to search for
+	 * @return	Upper bound of <code>key</code>, or the array length if no element is greater than it
+	 */
+	public int upperBound(int key) {
+		int k = 1;
+		while(k <= length) {
+			k = 2 * k + (tree[k] <= key ? 1 : 0);
+		}
+		k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+		return (k == 0) ? length : ranks[k];
+	}
+
+	/**
+	 * Searches for the lower or upper bounds of many keys in parallel.
+	 * @param keys		The keys to search for
+	 * @param upper		true to search for upper bounds, false to search for lower bounds
+	 * @return	The bound of every key, in the order of the keys
+	 */
+	public int[] bounds(int[] keys, boolean upper) {
+		int[] result = new int[keys.length];
+		run(new LookupTask(keys, result, upper, 0, keys.length), keys.length);
+		return result;
+	}
+
+	/**
+	 * Runs a task on the backend of the executor, or on the calling thread
+	 * if there is no executor or the task is too short to be split.
+	 * @param task		The task to run
+	 * @param length	Number of elements or keys of the task
+	 */
+	private void run(ForkJoinTask<?> task, int length) {
+		if(executor == null || length < MINLEN) {
+			task.invoke();
+		}
+		else {
+			executor.getBackend().invoke(task);
+		}
+	}
+
+	/**
+	 * Returns the number of elements in the subtree rooted at index <code>k</code>.
+	 * @param k		Index of the root of the subtree
+	 * @return	Size of the subtree
+	 */
+	private int subtreeSize(int k) {
+		int size = 0;
+		long lo = k;
+		long hi = k;
+		while(lo <= length) {
+			size += Math.min(hi, length) - lo + 1;
+			lo = 2 * lo;
+			hi = 2 * hi + 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Copies the elements of a subtree to the tree, in order.
+	 */
+	private class BuildTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The sorted array
+		 */
+		private final int[] array;
+		/**
+		 * Index of the root of the subtree
+		 */
+		private final int k;
+		/**
+		 * Index in the sorted array of the smallest element of the subtree
+		 */
+		private final int offset;
+
+		BuildTask(int[] array, int k, int offset) {
+			this.array = array;
+			this.k = k;
+			this.offset = offset;
+		}
+
+		@Override
+		protected void compute() {
+			build(k, offset, subtreeSize(k) >= MINLEN);
+		}
+
+		/**
+		 * Copies the elements of a subtree to the tree, in order.
+		 * @param k			Index of the root of the subtree
+		 * @param offset	Index in the sorted array of the smallest element of the subtree
+		 * @param parallel	true to make new tasks for the two child subtrees
+		 */
+		private void build(int k, int offset, boolean parallel) {
+			if(k > length) {
+				return;
+			}
+			int left = subtreeSize(2 * k);
+			tree[k] = array[offset + left];
+			ranks[k] = offset + left;
+			if(parallel) {
+				invokeAll(new BuildTask(array, 2 * k, offset),
+				new BuildTask(array, 2 * k + 1, offset + left + 1));
+			}
+			else {
+				build(2 * k, offset, false);
+				build(2 * k + 1, offset + left + 1, false);
+			}
+		}
+	}
+
+	/**
+	 * Searches for the bounds of a range of keys.
+	 */
+	private class LookupTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] keys;
+		private final int[] result;
+		private final boolean upper;
+		private final int lo;
+		private final int hi;
+
+		LookupTask(int[] keys, int[] result, boolean upper, int lo, int hi) {
+			this.keys = keys;
+			this.result = result;
+			this.upper = upper;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo >= MINLEN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new LookupTask(keys, result, upper, lo, mid),
+				new LookupTask(keys, result, upper, mid, hi));
+				return;
+			}
+			for(int i = lo; i < hi; i++) {
+				result[i] = upper ? upperBound(keys[i]) : lowerBound(keys[i]);
+			}
+		}
+	}
+}
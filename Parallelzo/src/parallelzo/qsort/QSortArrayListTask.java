@@ -2,6 +2,9 @@ package parallelzo.qsort;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
 /**
  * QSortArrayListTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that sorts using Parallel Quick Sort a generic ArrayList
@@ -34,6 +37,18 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 	 * Ending index of sorting range
 	 */
 	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+	/**
+	 * Number of splits between this task and the task that started the operation
+	 */
+	private final int depth;
 	
 	/**
 	 * Creates a sort task for a generic ArrayList of
@@ -44,9 +59,54 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 	 * @param end		Ending index of sorting range
 	 */
 	public QSortArrayListTask(ArrayList<T> array , int start, int end) {
+		this(array, start, end, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a generic ArrayList of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the list from <code>start</code> up to <code>end</code>.
+	 * @param array		The ArrayList to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public QSortArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation) {
+		this(array, start, end, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for a generic ArrayList of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the list from <code>start</code> up to <code>end</code>.
+	 * @param array		The ArrayList to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	public QSortArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation, TaskListener listener) {
+		this(array, start, end, cancellation, listener, 0);
+	}
+
+	/**
+	 * Creates a sort task for a generic ArrayList of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the list from <code>start</code> up to <code>end</code>.
+	 * @param array		The ArrayList to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @param depth		Number of splits between this task and the task that started the operation
+	 */
+	private QSortArrayListTask(ArrayList<T> array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 		this.array = array;
 		this.start = start;
 		this.end = end;
+		this.cancellation = cancellation;
+		this.listener = listener;
+		this.depth = depth;
 		this.rand = new Random();
 	}
 	
@@ -59,6 +119,9 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 		this.array = array;
 		this.start = 0;
 		this.end = array.size() - 1;
+		this.cancellation = new Cancellation();
+		this.listener = null;
+		this.depth = 0;
 		this.rand = new Random();
 	}
 	
@@ -74,7 +137,11 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 		if (start >= end) {
 			return;
 		}
+		if(end - start + 1 >= MINLEN) {
+			cancellation.check();
+		}
 		int pivot = rand.nextInt(end - start) + start + 1;
+		long partitionStart = (listener != null) ? System.nanoTime() : 0;
 		pivot = partition(start, end, pivot);
 		
 		if(end - start + 1 < MINLEN) {
@@ -82,13 +149,19 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 			quickSort(pivot + 1, end);
 		}
 		else {
-			invokeAll(new QSortArrayListTask<T>(array, start, pivot - 1),
-			new QSortArrayListTask<T>(array, pivot + 1, end));
+			if(listener != null) {
+				listener.partition(depth, end - start + 1, System.nanoTime() - partitionStart);
+				listener.split(depth, pivot - start, end - pivot);
+			}
+			invokeAll(new QSortArrayListTask<T>(array, start, pivot - 1, cancellation, listener, depth + 1),
+			new QSortArrayListTask<T>(array, pivot + 1, end, cancellation, listener, depth + 1));
 		}
 	}
 	
 	/**
-	 * Partitions the array at the sorting range
+	 * Partitions the array at the sorting range. <br />
+	 * Elements equal to the pivot are sent to both sides, alternating by index,
+	 * so ranges with many equal elements are still divided evenly.
 	 * @param start		starting index of sorting range
 	 * @param end		ending index of sorting range
 	 * @param pivot		index of selected pivot
@@ -101,7 +174,8 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 		array.set(end, pivotVal);
 		pivot = start;
 		for (int i = start; i < end; i++) {
-			if (array.get(i).compareTo(pivotVal) < 0) {
+			int cmp = array.get(i).compareTo(pivotVal);
+			if (cmp < 0 || (cmp == 0 && (i & 1) == 0)) {
 				temp = array.get(i);
 				array.set(i, array.get(pivot));
 				array.set(pivot, temp);
@@ -118,6 +192,9 @@ public class QSortArrayListTask<T extends Comparable<T>> extends RecursiveAction
 	 */
 	@Override
 	protected void compute() {
+		if(listener != null && end - start + 1 < MINLEN) {
+			listener.leaf(depth, Math.max(end - start + 1, 0));
+		}
 		quickSort(start, end);
 	}
 }
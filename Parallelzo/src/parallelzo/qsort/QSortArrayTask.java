@@ -1,6 +1,9 @@
 package parallelzo.qsort;
 import java.util.Random;
 import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
 /**
  * QSortArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that sorts using Parallel Quick Sort a generic Array 
@@ -32,6 +35,18 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 	 * Ending index of sorting range
 	 */
 	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+	/**
+	 * Number of splits between this task and the task that started the operation
+	 */
+	private final int depth;
 	
 	/**
 	 * Creates a sort task for a generic Array of
@@ -42,9 +57,54 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 	 * @param end		Ending index of sorting range
 	 */
 	public QSortArrayTask(T[] array , int start, int end) {
+		this(array, start, end, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a generic Array of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public QSortArrayTask(T[] array, int start, int end, Cancellation cancellation) {
+		this(array, start, end, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for a generic Array of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	public QSortArrayTask(T[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+		this(array, start, end, cancellation, listener, 0);
+	}
+
+	/**
+	 * Creates a sort task for a generic Array of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @param depth		Number of splits between this task and the task that started the operation
+	 */
+	private QSortArrayTask(T[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 		this.array = array;
 		this.start = start;
 		this.end = end;
+		this.cancellation = cancellation;
+		this.listener = listener;
+		this.depth = depth;
 		this.rand = new Random();
 	}
 	
@@ -57,6 +117,9 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 		this.array = array;
 		this.start = 0;
 		this.end = array.length - 1;
+		this.cancellation = new Cancellation();
+		this.listener = null;
+		this.depth = 0;
 		this.rand = new Random();
 	}
 	
@@ -72,7 +135,11 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 		if (start >= end) {
 			return;
 		}
+		if(end - start + 1 >= MINLEN) {
+			cancellation.check();
+		}
 		int pivot = rand.nextInt(end - start) + start + 1;
+		long partitionStart = (listener != null) ? System.nanoTime() : 0;
 		pivot = partition(start, end, pivot);
 		
 		if(end - start + 1 < MINLEN) {
@@ -80,13 +147,19 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 			quickSort(pivot + 1, end);
 		}
 		else {
-			invokeAll(new QSortArrayTask<T>(array, start, pivot - 1),
-			new QSortArrayTask<T>(array, pivot + 1, end));
+			if(listener != null) {
+				listener.partition(depth, end - start + 1, System.nanoTime() - partitionStart);
+				listener.split(depth, pivot - start, end - pivot);
+			}
+			invokeAll(new QSortArrayTask<T>(array, start, pivot - 1, cancellation, listener, depth + 1),
+			new QSortArrayTask<T>(array, pivot + 1, end, cancellation, listener, depth + 1));
 		}
 	}
 	
 	/**
-	 * Partitions the array at the sorting range
+	 * Partitions the array at the sorting range. <br />
+	 * Elements equal to the pivot are sent to both sides, alternating by index,
+	 * so ranges with many equal elements are still divided evenly.
 	 * @param start		starting index of sorting range
 	 * @param end		ending index of sorting range
 	 * @param pivot		index of selected pivot
@@ -99,7 +172,8 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 		array[end] = pivotVal;
 		pivot = start;
 		for (int i = start; i < end; i++) {
-			if (array[i].compareTo(pivotVal) < 0) {
+			int cmp = array[i].compareTo(pivotVal);
+			if (cmp < 0 || (cmp == 0 && (i & 1) == 0)) {
 				temp = array[i];
 				array[i] = array[pivot];
 				array[pivot] = temp;
@@ -116,6 +190,9 @@ public class QSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
 	 */
 	@Override
 	protected void compute() {
+		if(listener != null && end - start + 1 < MINLEN) {
+			listener.leaf(depth, Math.max(end - start + 1, 0));
+		}
 		quickSort(start, end);
 	}
 
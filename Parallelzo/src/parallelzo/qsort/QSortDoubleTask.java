@@ -1,6 +1,9 @@
 package parallelzo.qsort;
 import java.util.Random;
 import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
 /**
  * QSortDoubleTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that sorts using Parallel Quick Sort a double Array <br />
@@ -31,6 +34,18 @@ public class QSortDoubleTask extends RecursiveAction {
 	 * Ending index of sorting range
 	 */
 	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+	/**
+	 * Number of splits between this task and the task that started the operation
+	 */
+	private final int depth;
 	
 	/**
 	 * Creates a sort task for a double Array.
@@ -40,9 +55,51 @@ public class QSortDoubleTask extends RecursiveAction {
 	 * @param end		Ending index of sorting range
 	 */
 	public QSortDoubleTask(double[] array , int start, int end) {
+		this(array, start, end, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a double Array.
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public QSortDoubleTask(double[] array, int start, int end, Cancellation cancellation) {
+		this(array, start, end, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for a double Array.
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	public QSortDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+		this(array, start, end, cancellation, listener, 0);
+	}
+
+	/**
+	 * Creates a sort task for a double Array.
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @param depth		Number of splits between this task and the task that started the operation
+	 */
+	private QSortDoubleTask(double[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
 		this.array = array;
 		this.start = start;
 		this.end = end;
+		this.cancellation = cancellation;
+		this.listener = listener;
+		this.depth = depth;
 		this.rand = new Random();
 	}
 	
@@ -54,6 +111,9 @@ public class QSortDoubleTask extends RecursiveAction {
 		this.array = array;
 		this.start = 0;
 		this.end = array.length - 1;
+		this.cancellation = new Cancellation();
+		this.listener = null;
+		this.depth = 0;
 		this.rand = new Random();
 	}
 	
@@ -69,7 +129,11 @@ public class QSortDoubleTask extends RecursiveAction {
 		if (start >= end) {
 			return;
 		}
+		if(end - start + 1 >= MINLEN) {
+			cancellation.check();
+		}
 		int pivot = rand.nextInt(end - start) + start + 1;
+		long partitionStart = (listener != null) ? System.nanoTime() : 0;
 		pivot = partition(start, end, pivot);
 		
 		if(end - start + 1 < MINLEN) {
@@ -77,13 +141,21 @@ public class QSortDoubleTask extends RecursiveAction {
 			quickSort(pivot + 1, end);
 		}
 		else {
-			invokeAll(new QSortDoubleTask(array, start, pivot - 1),
-			new QSortDoubleTask(array, pivot + 1, end));
+			if(listener != null) {
+				listener.partition(depth, end - start + 1, System.nanoTime() - partitionStart);
+				listener.split(depth, pivot - start, end - pivot);
+			}
+			invokeAll(new QSortDoubleTask(array, start, pivot - 1, cancellation, listener, depth + 1),
+			new QSortDoubleTask(array, pivot + 1, end, cancellation, listener, depth + 1));
 		}
 	}
 	
 	/**
-	 * Partitions the array at the sorting range
+	 * Partitions the array at the sorting range. <br />
+	 * Elements equal to the pivot are sent to both sides, alternating by index,
+	 * so ranges with many equal elements are still divided evenly. <br />
+	 * NaN is compared as greater than every other value and equal to NaN,
+	 * so NaNs end up last, and a NaN pivot divides the range like any other value.
 	 * @param start		starting index of sorting range
 	 * @param end		ending index of sorting range
 	 * @param pivot		index of selected pivot
@@ -95,8 +167,11 @@ public class QSortDoubleTask extends RecursiveAction {
 		array[pivot] =  array[end];
 		array[end] = pivotVal;
 		pivot = start;
+		boolean nan = Double.isNaN(pivotVal);
 		for (int i = start; i < end; i++) {
-			if (array[i] < pivotVal) {
+			double value = array[i];
+			boolean equal = nan ? value != value : value == pivotVal;
+			if ((nan ? value == value : value < pivotVal) || (equal && (i & 1) == 0)) {
 				temp = array[i];
 				array[i] = array[pivot];
 				array[pivot] = temp;
@@ -113,6 +188,9 @@ public class QSortDoubleTask extends RecursiveAction {
 	 */
 	@Override
 	protected void compute() {
+		if(listener != null && end - start + 1 < MINLEN) {
+			listener.leaf(depth, Math.max(end - start + 1, 0));
+		}
 		quickSort(start, end);
 	}
 
@@ -1,24 +1,31 @@
 package parallelzo.qsort;
-import java.util.Random;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
 /**
  * QSortIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
  * that sorts using Parallel Quick Sort an int Array. <br />
+ * After every partition the task forks a new task for the larger part, and goes on partitioning
+ * the smaller part itself, so a partition allocates a single task, and no thread waits on a join.
+ * Parts shorter than about an eighth of the share of a pool thread are sorted on the current thread. <br />
  * Recommended use: when array length is greater then 20,000 elements. 
  * 
  * @author Oz Elentok <oz.elen@gmail.com>
  * @version 1.0
  */
-public class QSortIntTask extends RecursiveAction {
+public class QSortIntTask extends CountedCompleter<Void> {
 	private static final long serialVersionUID = 1L;
 	/**
 	 * Minimum length of an array required to make new tasks
 	 */
 	private static final int MINLEN = 1000;
 	/**
-	 * Pivot Index Generator
+	 * Number of parts to divide the array into for every pool thread
 	 */
-	private final Random rand;
+	private static final int PARTS_PER_THREAD = 8;
 	/**
 	 * The Array to sort
 	 */
@@ -31,6 +38,23 @@ public class QSortIntTask extends RecursiveAction {
 	 * Ending index of sorting range
 	 */
 	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+	/**
+	 * Number of splits between this task and the task that started the operation
+	 */
+	private final int depth;
+	/**
+	 * Length of part below which it is sorted on the current thread,
+	 * or 0 if not decided yet
+	 */
+	private final int leafLength;
 	
 	/**
 	 * Creates a sort task for an int Array. <br />
@@ -40,10 +64,56 @@ public class QSortIntTask extends RecursiveAction {
 	 * @param end		Ending index of sorting range
 	 */
 	public QSortIntTask(int[] array , int start, int end) {
+		this(array, start, end, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for an int Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public QSortIntTask(int[] array, int start, int end, Cancellation cancellation) {
+		this(array, start, end, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for an int Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	public QSortIntTask(int[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+		this(null, array, start, end, cancellation, listener, 0, 0);
+	}
+
+	/**
+	 * Creates a sort task for an int Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param parent	The task that forked this task, or null
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @param depth		Number of splits between this task and the task that started the operation
+	 * @param leafLength	Length of part below which it is sorted on the current thread, or 0
+	 */
+	private QSortIntTask(QSortIntTask parent, int[] array, int start, int end, Cancellation cancellation,
+			TaskListener listener, int depth, int leafLength) {
+		super(parent);
 		this.array = array;
 		this.start = start;
 		this.end = end;
-		this.rand = new Random();
+		this.cancellation = cancellation;
+		this.listener = listener;
+		this.depth = depth;
+		this.leafLength = leafLength;
 	}
 	
 	/**
@@ -51,39 +121,37 @@ public class QSortIntTask extends RecursiveAction {
 	 * @param array		The Array to sort	
 	 */
 	public QSortIntTask(int[] array) {
-		this.array = array;
-		this.start = 0;
-		this.end = array.length - 1;
-		this.rand = new Random();
+		this(null, array, 0, array.length - 1, new Cancellation(), null, 0, 0);
 	}
 	
 	/**
-	 * Sorts the array from start index to end index using Quick Sort. <br />
-	 * The array at the sorting range gets partitioned. <br />
-	 * the length of the sorting range decides whether to make new tasks(adding them to the thread pool),
-	 * or to sort them on the current thread.
+	 * Sorts the array from start index to end index using Quick Sort, on the current thread. <br />
+	 * The smaller part of every partition is sorted by recursion, and the larger part by the loop,
+	 * so the recursion is never deeper than the logarithm of the length of the range.
 	 * @param start		starting index of sorting range
 	 * @param end		ending index of sorting range
 	 */
 	private void quickSort(int start, int end) {
-		if (start >= end) {
-			return;
-		}
-		int pivot = rand.nextInt(end - start) + start + 1;
-		pivot = partition(start, end, pivot);
-		
-		if(end - start + 1 < MINLEN) {
-			quickSort(start, pivot - 1);
-			quickSort(pivot + 1, end);
-		}
-		else {
-			invokeAll(new QSortIntTask(array, start, pivot - 1),
-			new QSortIntTask(array, pivot + 1, end));
+		while (start < end) {
+			if(end - start + 1 >= MINLEN) {
+				cancellation.check();
+			}
+			int pivot = partition(start, end, ThreadLocalRandom.current().nextInt(end - start) + start + 1);
+			if(pivot - start < end - pivot) {
+				quickSort(start, pivot - 1);
+				start = pivot + 1;
+			}
+			else {
+				quickSort(pivot + 1, end);
+				end = pivot - 1;
+			}
 		}
 	}
 	
 	/**
-	 * Partitions the array at the sorting range
+	 * Partitions the array at the sorting range. <br />
+	 * Elements equal to the pivot are sent to both sides, alternating by index,
+	 * so ranges with many equal elements are still divided evenly.
 	 * @param start		starting index of sorting range
 	 * @param end		ending index of sorting range
 	 * @param pivot		index of selected pivot
@@ -96,7 +164,7 @@ public class QSortIntTask extends RecursiveAction {
 		array[end] = pivotVal;
 		pivot = start;
 		for (int i = start; i < end; i++) {
-			if (array[i] < pivotVal) {
+			if (array[i] < pivotVal || (array[i] == pivotVal && (i & 1) == 0)) {
 				temp = array[i];
 				array[i] = array[pivot];
 				array[pivot] = temp;
@@ -109,11 +177,46 @@ public class QSortIntTask extends RecursiveAction {
 	}
 	
 	/**
-	 * Starts the sorting process.
+	 * Sorts the array from start index to end index using Quick Sort. <br />
+	 * While the sorting range is not shorter than the leaf length, it gets partitioned,
+	 * the larger part is forked as a new task (adding it to the thread pool),
+	 * and the smaller part becomes the sorting range. The rest of the range is sorted on the current thread.
 	 */
 	@Override
-	protected void compute() {
-		quickSort(start, end);
+	public void compute() {
+		int leaf = leafLength;
+		if(leaf == 0) {
+			ForkJoinPool pool = getPool();
+			int threads = (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+			leaf = Math.max(MINLEN, (end - start + 1) / (threads * PARTS_PER_THREAD) + 1);
+		}
+		int lo = start;
+		int hi = end;
+		int level = depth;
+		while(hi - lo + 1 >= leaf) {
+			cancellation.check();
+			long partitionStart = (listener != null) ? System.nanoTime() : 0;
+			int pivot = partition(lo, hi, ThreadLocalRandom.current().nextInt(hi - lo) + lo + 1);
+			if(listener != null) {
+				listener.partition(level, hi - lo + 1, System.nanoTime() - partitionStart);
+				listener.split(level, pivot - lo, hi - pivot);
+			}
+			level++;
+			addToPendingCount(1);
+			if(pivot - lo > hi - pivot) {
+				new QSortIntTask(this, array, lo, pivot - 1, cancellation, listener, level, leaf).fork();
+				lo = pivot + 1;
+			}
+			else {
+				new QSortIntTask(this, array, pivot + 1, hi, cancellation, listener, level, leaf).fork();
+				hi = pivot - 1;
+			}
+		}
+		if(listener != null) {
+			listener.leaf(level, Math.max(hi - lo + 1, 0));
+		}
+		quickSort(lo, hi);
+		tryComplete();
 	}
 
 }
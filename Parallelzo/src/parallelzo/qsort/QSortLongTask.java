@@ -0,0 +1,192 @@
+package parallelzo.qsort;
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+import parallelzo.TaskListener;
+/**
+ * QSortLongTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts using Parallel Quick Sort a long Array. <br />
+ * Recommended use: when array length is greater then 20,000 elements. 
+ * 
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class QSortLongTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of an array required to make new tasks
+	 */
+	private static final int MINLEN = 1000;
+	/**
+	 * Pivot Index Generator
+	 */
+	private final Random rand;
+	/**
+	 * The Array to sort
+	 */
+	private final long[] array;
+	/**
+	 * Starting index of sorting range
+	 */
+	private final int start;
+	/**
+	 * Ending index of sorting range
+	 */
+	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Listener of task events, or null if instrumentation is disabled
+	 */
+	private final TaskListener listener;
+	/**
+	 * Number of splits between this task and the task that started the operation
+	 */
+	private final int depth;
+	
+	/**
+	 * Creates a sort task for a long Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 */
+	public QSortLongTask(long[] array , int start, int end) {
+		this(array, start, end, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a long Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public QSortLongTask(long[] array, int start, int end, Cancellation cancellation) {
+		this(array, start, end, cancellation, null);
+	}
+
+	/**
+	 * Creates a sort task for a long Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 */
+	public QSortLongTask(long[] array, int start, int end, Cancellation cancellation, TaskListener listener) {
+		this(array, start, end, cancellation, listener, 0);
+	}
+
+	/**
+	 * Creates a sort task for a long Array. <br />
+	 * Sorts the array from <code>start</code> up to <code>end</code>.
+	 * @param array		The Array to sort	
+	 * @param start		Starting index of sorting range
+	 * @param end		Ending index of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param listener	Listener of task events, or null to disable instrumentation
+	 * @param depth		Number of splits between this task and the task that started the operation
+	 */
+	private QSortLongTask(long[] array, int start, int end, Cancellation cancellation, TaskListener listener, int depth) {
+		this.array = array;
+		this.start = start;
+		this.end = end;
+		this.cancellation = cancellation;
+		this.listener = listener;
+		this.depth = depth;
+		this.rand = new Random();
+	}
+	
+	/**
+	 * Creates a sort task for a long Array
+	 * @param array		The Array to sort	
+	 */
+	public QSortLongTask(long[] array) {
+		this.array = array;
+		this.start = 0;
+		this.end = array.length - 1;
+		this.cancellation = new Cancellation();
+		this.listener = null;
+		this.depth = 0;
+		this.rand = new Random();
+	}
+	
+	/**
+	 * Sorts the array from start index to end index using Quick Sort. <br />
+	 * The array at the sorting range gets partitioned. <br />
+	 * the length of the sorting range decides whether to make new tasks(adding them to the thread pool),
+	 * or to sort them on the current thread.
+	 * @param start		starting index of sorting range
+	 * @param end		ending index of sorting range
+	 */
+	private void quickSort(int start, int end) {
+		if (start >= end) {
+			return;
+		}
+		if(end - start + 1 >= MINLEN) {
+			cancellation.check();
+		}
+		int pivot = rand.nextInt(end - start) + start + 1;
+		long partitionStart = (listener != null) ? System.nanoTime() : 0;
+		pivot = partition(start, end, pivot);
+		
+		if(end - start + 1 < MINLEN) {
+			quickSort(start, pivot - 1);
+			quickSort(pivot + 1, end);
+		}
+		else {
+			if(listener != null) {
+				listener.partition(depth, end - start + 1, System.nanoTime() - partitionStart);
+				listener.split(depth, pivot - start, end - pivot);
+			}
+			invokeAll(new QSortLongTask(array, start, pivot - 1, cancellation, listener, depth + 1),
+			new QSortLongTask(array, pivot + 1, end, cancellation, listener, depth + 1));
+		}
+	}
+	
+	/**
+	 * Partitions the array at the sorting range. <br />
+	 * Elements equal to the pivot are sent to both sides, alternating by index,
+	 * so ranges with many equal elements are still divided evenly.
+	 * @param start		starting index of sorting range
+	 * @param end		ending index of sorting range
+	 * @param pivot		index of selected pivot
+	 * @return		new index of the selected pivot 
+	 */
+	private int partition(int start, int end, int pivot) {
+		long pivotVal = array[pivot];
+		long temp;
+		array[pivot] =  array[end];
+		array[end] = pivotVal;
+		pivot = start;
+		for (int i = start; i < end; i++) {
+			if (array[i] < pivotVal || (array[i] == pivotVal && (i & 1) == 0)) {
+				temp = array[i];
+				array[i] = array[pivot];
+				array[pivot] = temp;
+				pivot++;
+			}
+		}
+		array[end] = array[pivot];
+		array[pivot] = pivotVal;
+		return pivot;
+	}
+	
+	/**
+	 * Starts the sorting process.
+	 */
+	@Override
+	protected void compute() {
+		if(listener != null && end - start + 1 < MINLEN) {
+			listener.leaf(depth, Math.max(end - start + 1, 0));
+		}
+		quickSort(start, end);
+	}
+
+}
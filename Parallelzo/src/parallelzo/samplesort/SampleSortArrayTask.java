@@ -0,0 +1,324 @@
+package parallelzo.samplesort;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+import parallelzo.Cancellation;
+/**
+ * SampleSortArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts using Parallel Super Scalar Sample Sort a generic Array
+ * of a type that implements the {@link java.lang.Comparable Comparable} Interface. <br />
+ * A random sample of the array, {@link #OVERSAMPLING} times larger than the number of buckets,
+ * is sorted, and every {@link #OVERSAMPLING}th element of it becomes a splitter.
+ * The splitters are laid out as an implicit binary search tree, and every element is classified
+ * into its bucket by walking the tree with no data dependent branches, in parallel blocks. <br />
+ * The elements are then moved into their buckets, and the buckets, all of about the same size,
+ * are sorted independently in parallel, with {@link java.util.Arrays#sort(Object[], int, int)},
+ * which makes fewer comparisons than quick sort. <br />
+ * When a splitter is repeated in the sample, every splitter also gets an equality bucket,
+ * holding the elements equal to it, which is already sorted, so arrays with many duplicates
+ * are not left in a single bucket. A bucket longer than twice the average is sample sorted again,
+ * up to {@link #MAX_DEPTH} levels deep, rather than sorted by a single thread. <br />
+ * The array needs one temporary copy of its length, and another of every bucket it sorts again. <br />
+ * Recommended use: when array length is greater then 100,000 elements,
+ * and comparisons are expensive, such as of Strings or composite keys.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class SampleSortArrayTask<T extends Comparable<T>> extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Number of sampled elements for every bucket
+	 */
+	public static final int OVERSAMPLING = 32;
+	/**
+	 * Greatest number of buckets
+	 */
+	public static final int MAX_BUCKETS = 256;
+	/**
+	 * Greatest number of levels of buckets sample sorted again
+	 */
+	public static final int MAX_DEPTH = 4;
+	/**
+	 * Minimum length of an array required to make new tasks,
+	 * and minimum average length of a bucket
+	 */
+	private static final int MINLEN = 1 << 14;
+	/**
+	 * Length of the blocks classified and moved by a single task
+	 */
+	private static final int BLOCK = 1 << 14;
+	/**
+	 * Phase of a block task classifying elements
+	 */
+	private static final int CLASSIFY = 0;
+	/**
+	 * Phase of a block task moving elements to their buckets
+	 */
+	private static final int SCATTER = 1;
+	/**
+	 * Phase of a block task sorting buckets
+	 */
+	private static final int SORT = 2;
+	/**
+	 * The Array to sort
+	 */
+	private final T[] array;
+	/**
+	 * Starting index of sorting range
+	 */
+	private final int start;
+	/**
+	 * Length of sorting range
+	 */
+	private final int length;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * Number of times the range was divided into buckets before this task
+	 */
+	private final int depth;
+	/**
+	 * Number of buckets between the splitters, a power of two
+	 */
+	private int buckets;
+	/**
+	 * Number of buckets, including the equality buckets
+	 */
+	private int total;
+	/**
+	 * true if every splitter has an equality bucket
+	 */
+	private boolean equality;
+	/**
+	 * Depth of the splitter tree
+	 */
+	private int levels;
+	/**
+	 * The splitters in breadth first order, starting at index 1
+	 */
+	private T[] tree;
+	/**
+	 * The splitters in order
+	 */
+	private T[] splitters;
+	/**
+	 * Bucket of every element
+	 */
+	private short[] oracle;
+	/**
+	 * Number of elements of every bucket in every block,
+	 * then the position of the next element of every bucket from every block
+	 */
+	private int[][] counts;
+	/**
+	 * Position of the first element of every bucket
+	 */
+	private int[] bucketStart;
+	/**
+	 * The elements moved to their buckets
+	 */
+	private T[] buffer;
+
+	/**
+	 * Creates a sample sort task for a generic Array of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface.
+	 * @param array		The Array to sort
+	 */
+	public SampleSortArrayTask(T[] array) {
+		this(array, new Cancellation());
+	}
+
+	/**
+	 * Creates a sample sort task for a generic Array of
+	 * a type that implements the {@link java.lang.Comparable Comparable} Interface.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public SampleSortArrayTask(T[] array, Cancellation cancellation) {
+		this(array, 0, array.length, cancellation, 0);
+	}
+
+	/**
+	 * Creates a sample sort task for a range of a generic Array.
+	 * @param array			The Array to sort
+	 * @param start			Starting index of sorting range
+	 * @param length		Length of sorting range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 * @param depth			Number of times the range was divided into buckets before this task
+	 */
+	private SampleSortArrayTask(T[] array, int start, int length, Cancellation cancellation, int depth) {
+		this.array = array;
+		this.start = start;
+		this.length = length;
+		this.cancellation = cancellation;
+		this.depth = depth;
+	}
+
+	/**
+	 * Sorts the range of the array.
+	 */
+	@Override
+	protected void compute() {
+		int n = length;
+		if(n < MINLEN || depth >= MAX_DEPTH) {
+			Arrays.sort(array, start, start + n);
+			return;
+		}
+		buckets = Math.max(2, Integer.highestOneBit(Math.min(MAX_BUCKETS, n / MINLEN)));
+		levels = Integer.numberOfTrailingZeros(buckets);
+		tree = splitters();
+		total = equality ? 2 * buckets - 1 : buckets;
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		oracle = new short[n];
+		counts = new int[blocks][total];
+		new BlockTask(CLASSIFY, 0, blocks).invoke();
+		bucketStart = new int[total + 1];
+		int position = 0;
+		for(int b = 0; b < total; b++) {
+			bucketStart[b] = position;
+			for(int block = 0; block < blocks; block++) {
+				int count = counts[block][b];
+				counts[block][b] = position;
+				position += count;
+			}
+		}
+		bucketStart[total] = position;
+		buffer = newArray(n);
+		new BlockTask(SCATTER, 0, blocks).invoke();
+		oracle = null;
+		counts = null;
+		new BlockTask(SORT, 0, total).invoke();
+	}
+
+	/**
+	 * Draws a random sample of the range, takes the splitters from it, and decides whether
+	 * to use equality buckets, which it does if a splitter is equal to the sampled element before it.
+	 * @return	The splitters in breadth first order, starting at index 1
+	 */
+	private T[] splitters() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		T[] sample = newArray(buckets * OVERSAMPLING);
+		for(int i = 0; i < sample.length; i++) {
+			sample[i] = array[start + random.nextInt(length)];
+		}
+		Arrays.sort(sample);
+		splitters = newArray(buckets - 1);
+		for(int i = 0; i < splitters.length; i++) {
+			int index = (i + 1) * OVERSAMPLING - 1;
+			splitters[i] = sample[index];
+			equality |= sample[index - 1].compareTo(sample[index]) == 0;
+		}
+		T[] layout = newArray(buckets);
+		layout(layout, splitters, 1, 0);
+		return layout;
+	}
+
+	/**
+	 * Copies sorted splitters to a subtree of the splitter tree, in order.
+	 * @param layout	The splitter tree
+	 * @param sorted	The sorted splitters
+	 * @param k			Index of the root of the subtree
+	 * @param i			Index of the smallest splitter of the subtree
+	 * @return	Index after the greatest splitter of the subtree
+	 */
+	private static <T> int layout(T[] layout, T[] sorted, int k, int i) {
+		if(k < layout.length) {
+			i = layout(layout, sorted, 2 * k, i);
+			layout[k] = sorted[i++];
+			i = layout(layout, sorted, 2 * k + 1, i);
+		}
+		return i;
+	}
+
+	/**
+	 * Creates an array of the same type as the array to sort.
+	 * @param length	Length of the new array
+	 * @return	A new array
+	 */
+	@SuppressWarnings("unchecked")
+	private T[] newArray(int length) {
+		return (T[]) Array.newInstance(array.getClass().getComponentType(), length);
+	}
+
+	/**
+	 * A phase of the sort over a range of blocks, or of buckets.
+	 */
+	private class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The phase of the sort
+		 */
+		private final int phase;
+		/**
+		 * First block or bucket of the range
+		 */
+		private final int lo;
+		/**
+		 * Block or bucket after the last one of the range
+		 */
+		private final int hi;
+
+		BlockTask(int phase, int lo, int hi) {
+			this.phase = phase;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(phase, lo, mid), new BlockTask(phase, mid, hi));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			if(phase == SORT) {
+				int from = bucketStart[lo];
+				int to = bucketStart[lo + 1];
+				System.arraycopy(buffer, from, array, start + from, to - from);
+				if(equality && (lo & 1) == 1) {
+					return;
+				}
+				if(to - from > 2 * (length / buckets)) {
+					new SampleSortArrayTask<T>(array, start + from, to - from, cancellation, depth + 1).invoke();
+				}
+				else {
+					Arrays.sort(array, start + from, start + to);
+				}
+				return;
+			}
+			int from = lo * BLOCK;
+			int to = Math.min(from + BLOCK, length);
+			int[] blockCounts = counts[lo];
+			if(phase == CLASSIFY) {
+				for(int i = from; i < to; i++) {
+					T element = array[start + i];
+					int j = 1;
+					for(int level = 0; level < levels; level++) {
+						j = 2 * j + (tree[j].compareTo(element) < 0 ? 1 : 0);
+					}
+					int bucket = j - buckets;
+					if(equality) {
+						bucket = (bucket < buckets - 1 && splitters[bucket].compareTo(element) == 0)
+								? 2 * bucket + 1 : 2 * bucket;
+					}
+					oracle[i] = (short) bucket;
+					blockCounts[bucket]++;
+				}
+			}
+			else {
+				for(int i = from; i < to; i++) {
+					buffer[blockCounts[oracle[i]]++] = array[start + i];
+				}
+			}
+		}
+	}
+}
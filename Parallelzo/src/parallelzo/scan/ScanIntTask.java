@@ -0,0 +1,204 @@
+package parallelzo.scan;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntBinaryOperator;
+
+import parallelzo.Cancellation;
+import parallelzo.memory.SplitPolicy;
+/**
+ * ScanIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that replaces every element of an int Array with the reduction of the elements before it,
+ * with an associative operator such as a sum (a prefix sum, or scan). <br />
+ * An inclusive scan reduces every element with the elements before it,
+ * an exclusive scan reduces only the elements before it, and writes the identity first. <br />
+ * The range is divided into blocks of about the same length, about four per pool thread,
+ * and never shorter than 10,000 elements. In the first pass every block but the last is reduced
+ * in parallel, the reductions of the blocks are scanned on the current thread, and in the second pass
+ * every block is scanned in parallel in place, starting from the reduction of the blocks before it.
+ * The array is read twice, and the only temporary memory is a value and a boundary for every block. <br />
+ * Recommended use: when array length is greater then 100,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class ScanIntTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of a block
+	 */
+	private static final int MINLEN = 10000;
+	/**
+	 * Number of blocks to divide the array into for every pool thread
+	 */
+	private static final int BLOCKS_PER_THREAD = 4;
+	/**
+	 * The Array to scan
+	 */
+	private final int[] array;
+	/**
+	 * Starting index of scanning range
+	 */
+	private final int start;
+	/**
+	 * Ending index of scanning range
+	 */
+	private final int end;
+	/**
+	 * The associative operator to scan with
+	 */
+	private final IntBinaryOperator operator;
+	/**
+	 * Identity value of the operator
+	 */
+	private final int identity;
+	/**
+	 * true for an inclusive scan, false for an exclusive scan
+	 */
+	private final boolean inclusive;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+	/**
+	 * First index of every block, followed by the index after the last block
+	 */
+	private int[] bounds;
+	/**
+	 * Reduction of every block, and then of all of the blocks before it
+	 */
+	private int[] carries;
+
+	/**
+	 * Creates a scan task for an int Array.
+	 * @param array		The Array to scan
+	 * @param operator	The associative operator to scan with
+	 * @param identity	Identity value of the operator, such as 0 for a sum
+	 * @param inclusive	true for an inclusive scan, false for an exclusive scan
+	 */
+	public ScanIntTask(int[] array, IntBinaryOperator operator, int identity, boolean inclusive) {
+		this(array, 0, array.length - 1, operator, identity, inclusive, new Cancellation());
+	}
+
+	/**
+	 * Creates a scan task for an int Array.
+	 * Scans the array from <code>start</code> up to <code>end</code>.
+	 * @param array			The Array to scan
+	 * @param start			Starting index of scanning range
+	 * @param end			Ending index of scanning range
+	 * @param operator		The associative operator to scan with
+	 * @param identity		Identity value of the operator, such as 0 for a sum
+	 * @param inclusive		true for an inclusive scan, false for an exclusive scan
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public ScanIntTask(int[] array, int start, int end, IntBinaryOperator operator, int identity,
+			boolean inclusive, Cancellation cancellation) {
+		this.array = array;
+		this.start = start;
+		this.end = end;
+		this.operator = operator;
+		this.identity = identity;
+		this.inclusive = inclusive;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Scans the array.
+	 */
+	@Override
+	protected void compute() {
+		int len = end - start + 1;
+		ForkJoinPool pool = getPool();
+		int threads = (pool != null) ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+		int blocks = Math.min(threads * BLOCKS_PER_THREAD, len / MINLEN);
+		if(blocks < 2) {
+			scan(start, end + 1, identity);
+			return;
+		}
+		bounds = SplitPolicy.ALIGNED.segments(len, blocks, Integer.BYTES);
+		carries = new int[blocks];
+		new BlockTask(true, 0, blocks - 1).invoke();
+		int carry = identity;
+		for(int b = 0; b < blocks - 1; b++) {
+			int reduction = carries[b];
+			carries[b] = carry;
+			carry = operator.applyAsInt(carry, reduction);
+		}
+		carries[blocks - 1] = carry;
+		cancellation.check();
+		new BlockTask(false, 0, blocks).invoke();
+		bounds = null;
+		carries = null;
+	}
+
+	/**
+	 * Scans a range of the array in place.
+	 * @param from		First index of the range
+	 * @param to		Index after the last index of the range
+	 * @param carry		Reduction of the elements before the range
+	 */
+	private void scan(int from, int to, int carry) {
+		if(inclusive) {
+			for(int i = from; i < to; i++) {
+				carry = operator.applyAsInt(carry, array[i]);
+				array[i] = carry;
+			}
+		}
+		else {
+			for(int i = from; i < to; i++) {
+				int value = array[i];
+				array[i] = carry;
+				carry = operator.applyAsInt(carry, value);
+			}
+		}
+	}
+
+	/**
+	 * Reduces, or scans, every block of a range of blocks.
+	 */
+	private class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * true to reduce the blocks, false to scan them
+		 */
+		private final boolean reduce;
+		/**
+		 * First block of the range
+		 */
+		private final int lo;
+		/**
+		 * Block after the last block of the range
+		 */
+		private final int hi;
+
+		BlockTask(boolean reduce, int lo, int hi) {
+			this.reduce = reduce;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(reduce, lo, mid), new BlockTask(reduce, mid, hi));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			int from = start + bounds[lo];
+			int to = start + bounds[lo + 1];
+			if(reduce) {
+				int reduction = array[from];
+				for(int i = from + 1; i < to; i++) {
+					reduction = operator.applyAsInt(reduction, array[i]);
+				}
+				carries[lo] = reduction;
+			}
+			else {
+				scan(from, to, carries[lo]);
+			}
+		}
+	}
+}
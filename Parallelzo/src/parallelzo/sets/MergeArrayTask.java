@@ -0,0 +1,100 @@
+package parallelzo.sets;
+import java.lang.reflect.Array;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+/**
+ * MergeArrayTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that merges any number of sorted generic Arrays into one new sorted array. <br />
+ * The arrays are merged in a balanced tree of pairwise merges: the two halves of the arrays
+ * are merged in parallel, and the two results are merged with a {@link SetOperationArrayTask}
+ * doing a {@link SetOperation#MERGE MERGE}, which divides the merge itself between the threads. <br />
+ * Recommended use: when the sum of array lengths is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class MergeArrayTask<T extends Comparable<T>> extends RecursiveTask<T[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The sorted Arrays to merge
+	 */
+	private final T[][] arrays;
+	/**
+	 * Index of the first array to merge
+	 */
+	private final int start;
+	/**
+	 * Index after the last array to merge
+	 */
+	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that merges sorted generic Arrays.
+	 * @param arrays	The sorted Arrays to merge
+	 */
+	public MergeArrayTask(T[][] arrays) {
+		this(arrays, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that merges sorted generic Arrays.
+	 * @param arrays		The sorted Arrays to merge
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public MergeArrayTask(T[][] arrays, Cancellation cancellation) {
+		this(arrays, 0, arrays.length, cancellation);
+	}
+
+	/**
+	 * Creates a task that merges the sorted generic Arrays from <code>start</code> up to <code>end</code>.
+	 * @param arrays		The sorted Arrays to merge
+	 * @param start			Index of the first array to merge
+	 * @param end			Index after the last array to merge
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	private MergeArrayTask(T[][] arrays, int start, int end, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.start = start;
+		this.end = end;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Merges the arrays. <br />
+	 * A range of a single array is returned as is, without copying it.
+	 * @return	The merged array
+	 */
+	private T[] merge() {
+		if(end - start == 0) {
+			@SuppressWarnings("unchecked")
+			T[] empty = (T[]) Array.newInstance(arrays.getClass().getComponentType().getComponentType(), 0);
+			return empty;
+		}
+		if(end - start == 1) {
+			return arrays[start];
+		}
+		cancellation.check();
+		int mid = (start + end) >>> 1;
+		MergeArrayTask<T> left = new MergeArrayTask<T>(arrays, start, mid, cancellation);
+		MergeArrayTask<T> right = new MergeArrayTask<T>(arrays, mid, end, cancellation);
+		left.fork();
+		T[] rightMerged = right.merge();
+		T[] leftMerged = left.join();
+		return new SetOperationArrayTask<T>(leftMerged, rightMerged, SetOperation.MERGE, cancellation).invoke();
+	}
+
+	/**
+	 * Starts the merging process.
+	 * @return	The merged array, never one of the given arrays
+	 */
+	@Override
+	protected T[] compute() {
+		T[] merged = merge();
+		return (end - start == 1) ? merged.clone() : merged;
+	}
+}
@@ -0,0 +1,97 @@
+package parallelzo.sets;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+/**
+ * MergeIntTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that merges any number of sorted int Arrays into one new sorted array. <br />
+ * The arrays are merged in a balanced tree of pairwise merges: the two halves of the arrays
+ * are merged in parallel, and the two results are merged with a {@link SetOperationIntTask}
+ * doing a {@link SetOperation#MERGE MERGE}, which divides the merge itself between the threads. <br />
+ * Recommended use: when the sum of array lengths is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class MergeIntTask extends RecursiveTask<int[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The sorted Arrays to merge
+	 */
+	private final int[][] arrays;
+	/**
+	 * Index of the first array to merge
+	 */
+	private final int start;
+	/**
+	 * Index after the last array to merge
+	 */
+	private final int end;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that merges sorted int Arrays.
+	 * @param arrays	The sorted Arrays to merge
+	 */
+	public MergeIntTask(int[][] arrays) {
+		this(arrays, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that merges sorted int Arrays.
+	 * @param arrays		The sorted Arrays to merge
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public MergeIntTask(int[][] arrays, Cancellation cancellation) {
+		this(arrays, 0, arrays.length, cancellation);
+	}
+
+	/**
+	 * Creates a task that merges the sorted int Arrays from <code>start</code> up to <code>end</code>.
+	 * @param arrays		The sorted Arrays to merge
+	 * @param start			Index of the first array to merge
+	 * @param end			Index after the last array to merge
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	private MergeIntTask(int[][] arrays, int start, int end, Cancellation cancellation) {
+		this.arrays = arrays;
+		this.start = start;
+		this.end = end;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Merges the arrays. <br />
+	 * A range of a single array is returned as is, without copying it.
+	 * @return	The merged array
+	 */
+	private int[] merge() {
+		if(end - start == 0) {
+			return new int[0];
+		}
+		if(end - start == 1) {
+			return arrays[start];
+		}
+		cancellation.check();
+		int mid = (start + end) >>> 1;
+		MergeIntTask left = new MergeIntTask(arrays, start, mid, cancellation);
+		MergeIntTask right = new MergeIntTask(arrays, mid, end, cancellation);
+		left.fork();
+		int[] rightMerged = right.merge();
+		int[] leftMerged = left.join();
+		return new SetOperationIntTask(leftMerged, rightMerged, SetOperation.MERGE, cancellation).invoke();
+	}
+
+	/**
+	 * Starts the merging process.
+	 * @return	The merged array, never one of the given arrays
+	 */
+	@Override
+	protected int[] compute() {
+		int[] merged = merge();
+		return (end - start == 1) ? merged.clone() : merged;
+	}
+}
@@ -0,0 +1,30 @@
+package parallelzo.sets;
+
+/**
+ * SetOperation is an operation on two sorted arrays, done by the set operation tasks. <br />
+ * Arrays may hold repeated values, in which case the operations follow multiset rules:
+ * a value repeated <code>m</code> times in the first array and <code>n</code> times
+ * in the second array is repeated in the result as given for each operation.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public enum SetOperation {
+	/**
+	 * Values in either array, repeated <code>max(m, n)</code> times
+	 */
+	UNION,
+	/**
+	 * Values in both arrays, repeated <code>min(m, n)</code> times
+	 */
+	INTERSECTION,
+	/**
+	 * Values in the first array that are not in the second array,
+	 * repeated <code>max(m - n, 0)</code> times
+	 */
+	DIFFERENCE,
+	/**
+	 * All values of both arrays, repeated <code>m + n</code> times
+	 */
+	MERGE
+}
@@ -0,0 +1,295 @@
+package parallelzo.sets;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import parallelzo.Cancellation;
+/**
+ * SetOperationLongTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that applies a {@link SetOperation} to two sorted long Arrays, and returns
+ * the sorted result in a new array. <br />
+ * The merged order of the two arrays is divided into blocks of equal length
+ * (merge path partitioning): the split of each block boundary between the two arrays
+ * is found with a binary search (co-ranking), and moved back to the first of any run
+ * of equal values, so equal values of both arrays always meet in the same block. <br />
+ * The first parallel pass counts the output of each block, the counts are prefix summed
+ * into the offset of each block in the result, and the second parallel pass writes
+ * the output of each block to its offset, so every thread gets an equal share of the work. <br />
+ * A run of equal values is never divided between blocks, so the block a run starts in
+ * also gets the rest of it: the blocks are balanced up to the length of the longest run,
+ * and input with long runs of duplicates is processed with less parallelism. <br />
+ * A result longer than the maximum array length throws an {@link IllegalArgumentException}. <br />
+ * Recommended use: when the sum of array lengths is greater then 500,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class SetOperationLongTask extends RecursiveTask<long[]> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Length of the blocks the merged order is divided into
+	 */
+	private static final int BLOCK = 10000;
+	/**
+	 * The first sorted Array
+	 */
+	private final long[] a;
+	/**
+	 * The second sorted Array
+	 */
+	private final long[] b;
+	/**
+	 * The operation to apply
+	 */
+	private final SetOperation operation;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a task that applies an operation to two sorted long Arrays.
+	 * @param a			The first sorted Array
+	 * @param b			The second sorted Array
+	 * @param operation	The operation to apply
+	 */
+	public SetOperationLongTask(long[] a, long[] b, SetOperation operation) {
+		this(a, b, operation, new Cancellation());
+	}
+
+	/**
+	 * Creates a task that applies an operation to two sorted long Arrays.
+	 * @param a			The first sorted Array
+	 * @param b			The second sorted Array
+	 * @param operation	The operation to apply
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public SetOperationLongTask(long[] a, long[] b, SetOperation operation, Cancellation cancellation) {
+		this.a = a;
+		this.b = b;
+		this.operation = operation;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Applies the operation to the arrays.
+	 * @return	The sorted result
+	 */
+	public long[] apply() {
+		int blocks = (int) (((long) a.length + b.length + BLOCK - 1) / BLOCK);
+		int[] offsets = new int[blocks + 1];
+		new BlockTask(null, offsets, 0, blocks).invoke();
+		long length = 0;
+		for(int i = 0; i < blocks; i++) {
+			length += offsets[i + 1];
+			if(length > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("the result is longer than the maximum array length: " + length);
+			}
+			offsets[i + 1] = (int) length;
+		}
+		long[] result = new long[offsets[blocks]];
+		new BlockTask(result, offsets, 0, blocks).invoke();
+		return result;
+	}
+
+	/**
+	 * Starts the process.
+	 * @return	The sorted result
+	 */
+	@Override
+	protected long[] compute() {
+		return apply();
+	}
+
+	/**
+	 * Returns the number of elements of each array that come before
+	 * position <code>diagonal</code> of the merged order of the two arrays. <br />
+	 * The split is moved back to the first of any run of values equal to the value at the split,
+	 * in both arrays. <br />
+	 * The position is kept in a long, as the sum of the array lengths may not fit in an int,
+	 * and only the splits, which are within each array, are narrowed to ints.
+	 * @param diagonal	Position in the merged order
+	 * @return	Splits in the first and second array, packed by {@link #pack(int, int)}
+	 */
+	private long split(long diagonal) {
+		long d = Math.min(diagonal, (long) a.length + b.length);
+		int lo = (int) Math.max(0, d - b.length);
+		int hi = (int) Math.min(d, a.length);
+		while(lo < hi) {
+			int i = (lo + hi) >>> 1;
+			if(a[i] <= b[(int) (d - i - 1)]) {
+				lo = i + 1;
+			}
+			else {
+				hi = i;
+			}
+		}
+		int i = lo;
+		int j = (int) (d - lo);
+		if(i < a.length && (j >= b.length || a[i] <= b[j])) {
+			long value = a[i];
+			return pack(lowerBound(a, i, value), lowerBound(b, j, value));
+		}
+		if(j < b.length) {
+			long value = b[j];
+			return pack(lowerBound(a, i, value), lowerBound(b, j, value));
+		}
+		return pack(i, j);
+	}
+
+	/**
+	 * Packs the splits in the two arrays into a single value.
+	 * @param i		Split in the first array, in the high 32 bits
+	 * @param j		Split in the second array, in the low 32 bits
+	 * @return	The packed splits
+	 */
+	private static long pack(int i, int j) {
+		return ((long) i << 32) | j;
+	}
+
+	/**
+	 * Returns the index of the first element of <code>array</code>, before <code>to</code>,
+	 * that is not less than <code>value</code>.
+	 * @param array		The sorted Array to search in
+	 * @param to		Index after the end of searching range
+	 * @param value		The value to search for
+	 * @return	The index of the first element not less than <code>value</code>, or <code>to</code>
+	 */
+	private static int lowerBound(long[] array, int to, long value) {
+		int from = 0;
+		while(from < to) {
+			int mid = (from + to) >>> 1;
+			if(array[mid] < value) {
+				from = mid + 1;
+			}
+			else {
+				to = mid;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * A pass over a range of blocks. <br />
+	 * Without a result array, the output length of block <code>k</code>
+	 * is stored at <code>offsets[k + 1]</code>. <br />
+	 * With a result array, the output of block <code>k</code>
+	 * is written to the result starting at <code>offsets[k]</code>.
+	 */
+	private class BlockTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The array to write the output to, or null to count it
+		 */
+		private final long[] result;
+		/**
+		 * Output lengths, or offsets in the result, of the blocks
+		 */
+		private final int[] offsets;
+		/**
+		 * First block of the range
+		 */
+		private final int lo;
+		/**
+		 * Block after the last block of the range
+		 */
+		private final int hi;
+
+		BlockTask(long[] result, int[] offsets, int lo, int hi) {
+			this.result = result;
+			this.offsets = offsets;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi - lo > 1) {
+				cancellation.check();
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(result, offsets, lo, mid),
+				new BlockTask(result, offsets, mid, hi));
+				return;
+			}
+			if(hi == lo) {
+				return;
+			}
+			long from = split((long) lo * BLOCK);
+			long to = split((long) hi * BLOCK);
+			int length = block((int) (from >>> 32), (int) (to >>> 32), (int) from, (int) to,
+					(result == null) ? 0 : offsets[lo]);
+			if(result == null) {
+				offsets[lo + 1] = length;
+			}
+		}
+
+		/**
+		 * Applies the operation to a block, writing the output if there is a result array.
+		 * @param i		Starting index in the first array
+		 * @param ea	Ending index (exclusive) in the first array
+		 * @param j		Starting index in the second array
+		 * @param eb	Ending index (exclusive) in the second array
+		 * @param pos	Offset of the block in the result
+		 * @return	Output length of the block
+		 */
+		private int block(int i, int ea, int j, int eb, int pos) {
+			int start = pos;
+			boolean write = result != null;
+			boolean union = operation == SetOperation.UNION;
+			boolean merge = operation == SetOperation.MERGE;
+			boolean keepA = operation != SetOperation.INTERSECTION;
+			boolean keepB = union || merge;
+			while(i < ea && j < eb) {
+				if(a[i] < b[j]) {
+					if(keepA) {
+						if(write) {
+							result[pos] = a[i];
+						}
+						pos++;
+					}
+					i++;
+				}
+				else if(b[j] < a[i]) {
+					if(keepB) {
+						if(write) {
+							result[pos] = b[j];
+						}
+						pos++;
+					}
+					j++;
+				}
+				else if(merge) {
+					if(write) {
+						result[pos] = a[i];
+						result[pos + 1] = b[j];
+					}
+					pos += 2;
+					i++;
+					j++;
+				}
+				else {
+					if(operation != SetOperation.DIFFERENCE) {
+						if(write) {
+							result[pos] = a[i];
+						}
+						pos++;
+					}
+					i++;
+					j++;
+				}
+			}
+			if(keepA) {
+				if(write) {
+					System.arraycopy(a, i, result, pos, ea - i);
+				}
+				pos += ea - i;
+			}
+			if(keepB) {
+				if(write) {
+					System.arraycopy(b, j, result, pos, eb - j);
+				}
+				pos += eb - j;
+			}
+			return pos - start;
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package parallelzo.stream;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import parallelzo.DoubleOrder;
+import parallelzo.ParallelExecutor;
+
+/**
+ * SortedStreams sorts the elements of streams with the sorts of a {@link parallelzo.ParallelExecutor ParallelExecutor},
+ * in place of {@link java.util.stream.Stream#sorted()}, which sorts on a single thread. <br />
+ * The elements are gathered into a single array, of a primitive type for primitive streams,
+ * in parallel if the stream is parallel, the array is sorted in parallel, and the sorted elements
+ * are returned through a {@link java.util.Spliterator Spliterator} over the array that is
+ * {@link java.util.Spliterator#SIZED SIZED}, {@link java.util.Spliterator#SUBSIZED SUBSIZED} and
+ * {@link java.util.Spliterator#SORTED SORTED}. Later parallel stages split it by index,
+ * without copying the elements again, and know that they are sorted. <br />
+ * double values are sorted in the {@link parallelzo.DoubleOrder#TOTAL total order},
+ * as by {@link java.util.stream.DoubleStream#sorted()}. <br />
+ * The collectors gather the elements of a stream of boxed values in growing primitive buffers,
+ * one for every thread of a parallel stream, and are unordered, since their result is sorted anyway.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class SortedStreams {
+	/**
+	 * Characteristics of the returned spliterators, along with SIZED and SUBSIZED
+	 */
+	private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.IMMUTABLE;
+	/**
+	 * The executor to sort with
+	 */
+	private final ParallelExecutor executor;
+
+	/**
+	 * Creates stream sorts that sort with <code>executor</code>.
+	 * @param executor	The executor to sort with
+	 */
+	public SortedStreams(ParallelExecutor executor) {
+		if(executor == null) {
+			throw new NullPointerException("executor");
+		}
+		this.executor = executor;
+	}
+
+	/**
+	 * Sorts the elements of an int stream.
+	 * @param stream	The stream to sort
+	 * @return	A stream of the sorted elements, parallel if <code>stream</code> is
+	 */
+	public IntStream sorted(IntStream stream) {
+		boolean parallel = stream.isParallel();
+		return StreamSupport.intStream(sortedSpliterator(stream.toArray()), parallel);
+	}
+
+	/**
+	 * Sorts the elements of a long stream.
+	 * @param stream	The stream to sort
+	 * @return	A stream of the sorted elements, parallel if <code>stream</code> is
+	 */
+	public LongStream sorted(LongStream stream) {
+		boolean parallel = stream.isParallel();
+		return StreamSupport.longStream(sortedSpliterator(stream.toArray()), parallel);
+	}
+
+	/**
+	 * Sorts the elements of a double stream in the total order.
+	 * @param stream	The stream to sort
+	 * @return	A stream of the sorted elements, parallel if <code>stream</code> is
+	 */
+	public DoubleStream sorted(DoubleStream stream) {
+		boolean parallel = stream.isParallel();
+		return StreamSupport.doubleStream(sortedSpliterator(stream.toArray()), parallel);
+	}
+
+	/**
+	 * Sorts the elements of a stream in their natural order.
+	 * @param stream	The stream to sort
+	 * @return	A stream of the sorted elements, parallel if <code>stream</code> is
+	 */
+	public <T extends Comparable<T>> Stream<T> sorted(Stream<T> stream) {
+		boolean parallel = stream.isParallel();
+		@SuppressWarnings("rawtypes")
+		Comparable[] array = stream.toArray(new IntFunction<Comparable[]>() {
+			@Override
+			public Comparable[] apply(int length) {
+				return new Comparable[length];
+			}
+		});
+		return StreamSupport.stream(this.<T>sortedSpliterator(array), parallel);
+	}
+
+	/**
+	 * Sorts an int array, and returns a spliterator over it.
+	 * @param array		The array to sort
+	 * @return	A sorted spliterator over the array
+	 */
+	private Spliterator.OfInt sortedSpliterator(int[] array) {
+		executor.sort(array);
+		return Spliterators.spliterator(array, CHARACTERISTICS);
+	}
+
+	/**
+	 * Sorts a long array, and returns a spliterator over it.
+	 * @param array		The array to sort
+	 * @return	A sorted spliterator over the array
+	 */
+	private Spliterator.OfLong sortedSpliterator(long[] array) {
+		executor.sort(array);
+		return Spliterators.spliterator(array, CHARACTERISTICS);
+	}
+
+	/**
+	 * Sorts a double array in the total order, and returns a spliterator over it.
+	 * @param array		The array to sort
+	 * @return	A sorted spliterator over the array
+	 */
+	private Spliterator.OfDouble sortedSpliterator(double[] array) {
+		executor.sort(array, DoubleOrder.TOTAL);
+		return Spliterators.spliterator(array, CHARACTERISTICS);
+	}
+
+	/**
+	 * Sorts an array of comparable elements, and returns a spliterator over it.
+	 * @param array		The array to sort
+	 * @return	A sorted spliterator over the array
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <T> Spliterator<T> sortedSpliterator(Comparable[] array) {
+		executor.sort(array);
+		return (Spliterator<T>) Spliterators.spliterator(array, CHARACTERISTICS);
+	}
+
+	/**
+	 * Returns a collector that gathers Integers into an int buffer, sorts it,
+	 * and returns a sorted spliterator over it.
+	 * @return	A sorting collector
+	 */
+	public Collector<Integer, ?, Spliterator.OfInt> toSortedInts() {
+		return collector(new Supplier<IntBuffer>() {
+			@Override
+			public IntBuffer get() {
+				return new IntBuffer();
+			}
+		}, new BiConsumer<IntBuffer, Integer>() {
+			@Override
+			public void accept(IntBuffer buffer, Integer value) {
+				buffer.add(value);
+			}
+		}, new BinaryOperator<IntBuffer>() {
+			@Override
+			public IntBuffer apply(IntBuffer left, IntBuffer right) {
+				return left.addAll(right);
+			}
+		}, new Function<IntBuffer, Spliterator.OfInt>() {
+			@Override
+			public Spliterator.OfInt apply(IntBuffer buffer) {
+				return sortedSpliterator(buffer.toArray());
+			}
+		});
+	}
+
+	/**
+	 * Returns a collector that gathers Longs into a long buffer, sorts it,
+	 * and returns a sorted spliterator over it.
+	 * @return	A sorting collector
+	 */
+	public Collector<Long, ?, Spliterator.OfLong> toSortedLongs() {
+		return collector(new Supplier<LongBuffer>() {
+			@Override
+			public LongBuffer get() {
+				return new LongBuffer();
+			}
+		}, new BiConsumer<LongBuffer, Long>() {
+			@Override
+			public void accept(LongBuffer buffer, Long value) {
+				buffer.add(value);
+			}
+		}, new BinaryOperator<LongBuffer>() {
+			@Override
+			public LongBuffer apply(LongBuffer left, LongBuffer right) {
+				return left.addAll(right);
+			}
+		}, new Function<LongBuffer, Spliterator.OfLong>() {
+			@Override
+			public Spliterator.OfLong apply(LongBuffer buffer) {
+				return sortedSpliterator(buffer.toArray());
+			}
+		});
+	}
+
+	/**
+	 * Returns a collector that gathers Doubles into a double buffer, sorts it in the total order,
+	 * and returns a sorted spliterator over it.
+	 * @return	A sorting collector
+	 */
+	public Collector<Double, ?, Spliterator.OfDouble> toSortedDoubles() {
+		return collector(new Supplier<DoubleBuffer>() {
+			@Override
+			public DoubleBuffer get() {
+				return new DoubleBuffer();
+			}
+		}, new BiConsumer<DoubleBuffer, Double>() {
+			@Override
+			public void accept(DoubleBuffer buffer, Double value) {
+				buffer.add(value);
+			}
+		}, new BinaryOperator<DoubleBuffer>() {
+			@Override
+			public DoubleBuffer apply(DoubleBuffer left, DoubleBuffer right) {
+				return left.addAll(right);
+			}
+		}, new Function<DoubleBuffer, Spliterator.OfDouble>() {
+			@Override
+			public Spliterator.OfDouble apply(DoubleBuffer buffer) {
+				return sortedSpliterator(buffer.toArray());
+			}
+		});
+	}
+
+	/**
+	 * Returns a collector that gathers elements into an array, sorts it in their natural order,
+	 * and returns a sorted spliterator over it.
+	 * @return	A sorting collector
+	 */
+	public <T extends Comparable<T>> Collector<T, ?, Spliterator<T>> toSorted() {
+		return collector(new Supplier<ObjectBuffer>() {
+			@Override
+			public ObjectBuffer get() {
+				return new ObjectBuffer();
+			}
+		}, new BiConsumer<ObjectBuffer, T>() {
+			@Override
+			public void accept(ObjectBuffer buffer, T value) {
+				buffer.add(value);
+			}
+		}, new BinaryOperator<ObjectBuffer>() {
+			@Override
+			public ObjectBuffer apply(ObjectBuffer left, ObjectBuffer right) {
+				return left.addAll(right);
+			}
+		}, new Function<ObjectBuffer, Spliterator<T>>() {
+			@Override
+			public Spliterator<T> apply(ObjectBuffer buffer) {
+				return sortedSpliterator(buffer.toArray());
+			}
+		});
+	}
+
+	/**
+	 * Creates an unordered collector.
+	 * @param supplier		Creates an empty buffer
+	 * @param accumulator	Adds an element to a buffer
+	 * @param combiner		Adds the elements of the second buffer to the first buffer
+	 * @param finisher		Sorts a buffer, and returns a spliterator over it
+	 * @return	A sorting collector
+	 */
+	private static <T, A, R> Collector<T, A, R> collector(Supplier<A> supplier, BiConsumer<A, T> accumulator,
+			BinaryOperator<A> combiner, Function<A, R> finisher) {
+		return Collector.of(supplier, accumulator, combiner, finisher, Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Growing buffer of int values.
+	 */
+	private static final class IntBuffer {
+		private int[] values = new int[16];
+		private int size;
+
+		void add(int value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		IntBuffer addAll(IntBuffer other) {
+			if(size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+			return this;
+		}
+
+		int[] toArray() {
+			return (size == values.length) ? values : Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Growing buffer of long values.
+	 */
+	private static final class LongBuffer {
+		private long[] values = new long[16];
+		private int size;
+
+		void add(long value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		LongBuffer addAll(LongBuffer other) {
+			if(size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+			return this;
+		}
+
+		long[] toArray() {
+			return (size == values.length) ? values : Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Growing buffer of double values.
+	 */
+	private static final class DoubleBuffer {
+		private double[] values = new double[16];
+		private int size;
+
+		void add(double value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		DoubleBuffer addAll(DoubleBuffer other) {
+			if(size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+			return this;
+		}
+
+		double[] toArray() {
+			return (size == values.length) ? values : Arrays.copyOf(values, size);
+		}
+	}
+
+	/**
+	 * Growing buffer of comparable elements.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static final class ObjectBuffer {
+		private Comparable[] values = new Comparable[16];
+		private int size;
+
+		void add(Comparable value) {
+			if(size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		ObjectBuffer addAll(ObjectBuffer other) {
+			if(size + other.size > values.length) {
+				values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+			}
+			System.arraycopy(other.values, 0, values, size, other.size);
+			size += other.size;
+			return this;
+		}
+
+		Comparable[] toArray() {
+			return (size == values.length) ? values : Arrays.copyOf(values, size);
+		}
+	}
+}
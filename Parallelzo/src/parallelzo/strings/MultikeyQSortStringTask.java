@@ -0,0 +1,239 @@
+package parallelzo.strings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import parallelzo.Cancellation;
+/**
+ * MultikeyQSortStringTask is a task for {@link java.util.concurrent.ForkJoinPool ForkJoinPool}
+ * that sorts using Parallel Multikey Quick Sort a String Array. <br />
+ * Each partition step looks at a single character position of the strings of a range,
+ * and divides the range into strings whose character there is smaller, equal or greater
+ * than the pivot character. The smaller and greater ranges are sorted from the same position,
+ * and the equal range from the next one, so the common prefix of a range is never compared again.
+ * That makes sorting strings that share long prefixes, such as URLs or composite keys,
+ * much cheaper than with {@link java.lang.String#compareTo(String) compareTo}. <br />
+ * The order is the natural order of Strings. <br />
+ * Recommended use: when array length is greater then 20,000 elements.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class MultikeyQSortStringTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * Minimum length of an array required to make new tasks
+	 */
+	private static final int MINLEN = 1000;
+	/**
+	 * Length of a range below which it is sorted with insertion sort
+	 */
+	private static final int INSERTION = 16;
+	/**
+	 * The Array to sort
+	 */
+	private final String[] array;
+	/**
+	 * Starting index of sorting range
+	 */
+	private final int start;
+	/**
+	 * Ending index of sorting range
+	 */
+	private final int end;
+	/**
+	 * Length of the prefix shared by all of the strings of the range
+	 */
+	private final int depth;
+	/**
+	 * Cancellation flag shared with the subtasks
+	 */
+	private final Cancellation cancellation;
+
+	/**
+	 * Creates a sort task for a String Array.
+	 * @param array		The Array to sort
+	 */
+	public MultikeyQSortStringTask(String[] array) {
+		this(array, 0, array.length - 1, 0, new Cancellation());
+	}
+
+	/**
+	 * Creates a sort task for a String Array.
+	 * @param array			The Array to sort
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	public MultikeyQSortStringTask(String[] array, Cancellation cancellation) {
+		this(array, 0, array.length - 1, 0, cancellation);
+	}
+
+	/**
+	 * Creates a sort task for a range of a String Array, whose strings all share
+	 * a prefix of length <code>depth</code>.
+	 * @param array			The Array to sort
+	 * @param start			Starting index of sorting range
+	 * @param end			Ending index of sorting range
+	 * @param depth			Length of the prefix shared by all of the strings of the range
+	 * @param cancellation	Cancellation flag shared with the subtasks
+	 */
+	private MultikeyQSortStringTask(String[] array, int start, int end, int depth, Cancellation cancellation) {
+		this.array = array;
+		this.start = start;
+		this.end = end;
+		this.depth = depth;
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Returns the character of a string at a position, or -1 past its end.
+	 * @param s		The string
+	 * @param d		The position
+	 * @return	The character, or -1
+	 */
+	private static int charAt(String s, int d) {
+		return (d < s.length()) ? s.charAt(d) : -1;
+	}
+
+	/**
+	 * Sorts the array from start index to end index using Multikey Quick Sort. <br />
+	 * The length of the sorting range decides whether to make new tasks(adding them to the thread pool),
+	 * or to sort them on the current thread. The equal range is always sorted on the current thread,
+	 * in the same loop, so a long shared prefix does not nest a task per character.
+	 * @param start		starting index of sorting range
+	 * @param end		ending index of sorting range
+	 * @param depth		length of the prefix shared by all of the strings of the range
+	 */
+	private void quickSort(int start, int end, int depth) {
+		List<MultikeyQSortStringTask> forked = null;
+		while(end - start + 1 > INSERTION) {
+			int pivot = median(charAt(array[start], depth),
+					charAt(array[(start + end) >>> 1], depth), charAt(array[end], depth));
+			int lt = start;
+			int gt = end;
+			int i = start;
+			while(i <= gt) {
+				int c = charAt(array[i], depth);
+				if(c < pivot) {
+					swap(lt++, i++);
+				}
+				else if(c > pivot) {
+					swap(i, gt--);
+				}
+				else {
+					i++;
+				}
+			}
+			if(end - start + 1 >= MINLEN) {
+				cancellation.check();
+				forked = fork(forked, start, lt - 1, depth);
+				forked = fork(forked, gt + 1, end, depth);
+			}
+			else {
+				quickSort(start, lt - 1, depth);
+				quickSort(gt + 1, end, depth);
+			}
+			if(pivot < 0) {
+				join(forked);
+				return;
+			}
+			start = lt;
+			end = gt;
+			depth++;
+		}
+		insertionSort(start, end, depth);
+		join(forked);
+	}
+
+	/**
+	 * Forks a task that sorts a range, unless it holds less than two elements.
+	 * @param forked	The tasks forked so far, or null
+	 * @param start		starting index of sorting range
+	 * @param end		ending index of sorting range
+	 * @param depth		length of the prefix shared by all of the strings of the range
+	 * @return	The forked tasks
+	 */
+	private List<MultikeyQSortStringTask> fork(List<MultikeyQSortStringTask> forked, int start, int end, int depth) {
+		if(start >= end) {
+			return forked;
+		}
+		if(forked == null) {
+			forked = new ArrayList<MultikeyQSortStringTask>();
+		}
+		MultikeyQSortStringTask task = new MultikeyQSortStringTask(array, start, end, depth, cancellation);
+		task.fork();
+		forked.add(task);
+		return forked;
+	}
+
+	/**
+	 * Waits for the forked tasks to finish.
+	 * @param forked	The forked tasks, or null
+	 */
+	private static void join(List<MultikeyQSortStringTask> forked) {
+		if(forked != null) {
+			for(MultikeyQSortStringTask task : forked) {
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Sorts a short range with insertion sort, comparing the strings from <code>depth</code> on.
+	 * @param start		starting index of sorting range
+	 * @param end		ending index of sorting range
+	 * @param depth		length of the prefix shared by all of the strings of the range
+	 */
+	private void insertionSort(int start, int end, int depth) {
+		for(int i = start + 1; i <= end; i++) {
+			String s = array[i];
+			int j = i - 1;
+			while(j >= start && compare(array[j], s, depth) > 0) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = s;
+		}
+	}
+
+	/**
+	 * Compares two strings that share a prefix of length <code>depth</code>.
+	 * @param a			The first string
+	 * @param b			The second string
+	 * @param depth		Length of the shared prefix
+	 * @return	The sign of the comparison, as by {@link java.lang.String#compareTo(String) compareTo}
+	 */
+	private static int compare(String a, String b, int depth) {
+		int length = Math.min(a.length(), b.length());
+		for(int i = depth; i < length; i++) {
+			int c = a.charAt(i) - b.charAt(i);
+			if(c != 0) {
+				return c;
+			}
+		}
+		return a.length() - b.length();
+	}
+
+	/**
+	 * @return	The median of three characters
+	 */
+	private static int median(int a, int b, int c) {
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+	}
+
+	/**
+	 * Swaps two elements of the array.
+	 */
+	private void swap(int i, int j) {
+		String temp = array[i];
+		array[i] = array[j];
+		array[j] = temp;
+	}
+
+	/**
+	 * Starts the sorting process.
+	 */
+	@Override
+	protected void compute() {
+		quickSort(start, end, depth);
+	}
+}
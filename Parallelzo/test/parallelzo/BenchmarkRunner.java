@@ -0,0 +1,493 @@
+package parallelzo;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import jdk.jfr.Recording;
+
+import parallelzo.max.MaxDoubleTask;
+import parallelzo.max.MaxIntTask;
+import parallelzo.metrics.JfrTaskListener;
+import parallelzo.min.MinArrayTask;
+import parallelzo.min.MinDoubleTask;
+import parallelzo.min.MinIntTask;
+import parallelzo.qsort.QSortArrayTask;
+import parallelzo.qsort.QSortDoubleTask;
+import parallelzo.qsort.QSortIntTask;
+import parallelzo.qsort.QSortLongTask;
+
+/**
+ * BenchmarkRunner measures the qsort and min/max tasks, and compares the results with a baseline
+ * kept in the repository, to catch performance regressions. <br />
+ * Every benchmark runs its task on a fresh copy of the same random array, a few times to warm up,
+ * and then a number of measured times. For every benchmark it records:
+ * <ul>
+ * <li>the throughput, in millions of elements per second, of the median run</li>
+ * <li>the bytes allocated per run by all threads, from
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long[]) ThreadMXBean}</li>
+ * <li>the garbage collection time per run, from the
+ * {@link java.lang.management.GarbageCollectorMXBean GarbageCollectorMXBeans}</li>
+ * </ul>
+ * A benchmark regresses when its throughput is lower than the baseline by more than the tolerance,
+ * or its allocation or collection time is higher by more than the tolerance and a small fixed slack.
+ * The exit status is the number of regressions. <br />
+ * Usage: <code>java parallelzo.BenchmarkRunner [options]</code>, from the root of the repository:
+ * <ul>
+ * <li><code>-record</code> writes the results as the new baseline instead of comparing with it</li>
+ * <li><code>-baseline file</code> the baseline, by default {@link #DEFAULT_BASELINE}</li>
+ * <li><code>-out file</code> also writes the results of this run, to keep a history of runs</li>
+ * <li><code>-tolerance fraction</code> allowed change, by default 0.2</li>
+ * <li><code>-length n</code>, <code>-parallelism n</code>, <code>-warmup n</code>,
+ * <code>-iterations n</code> the shape of the runs, by default those of the baseline</li>
+ * <li><code>-only prefix</code> runs only the benchmarks whose names start with the prefix</li>
+ * <li><code>-force</code> compares with a baseline recorded on another number of processors or
+ * with another parallelism, which is otherwise refused</li>
+ * <li><code>-jfr directory</code> records every benchmark with Java Flight Recorder, with the events of the
+ * tasks from a {@link parallelzo.metrics.JfrTaskListener JfrTaskListener}, into a file per benchmark.
+ * The task events add to the measured times, so compare such runs with a baseline recorded with them.</li>
+ * </ul>
+ * Baselines depend on the machine: record them on the machine the runs are compared on.
+ * A baseline records the number of processors and the parallelism it was measured with,
+ * and a run on another number of processors or with another parallelism is not compared with it.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+	/**
+	 * Path of the baseline, from the root of the repository
+	 */
+	static final String DEFAULT_BASELINE = "Parallelzo/test/baselines/benchmarks.json";
+	/**
+	 * Allocation per run below which a change is never a regression, in bytes
+	 */
+	private static final double ALLOCATION_SLACK = 64 * 1024;
+	/**
+	 * Collection time per run below which a change is never a regression, in milliseconds
+	 */
+	private static final double GC_SLACK_MILLIS = 2;
+	/**
+	 * Seed of the benchmark arrays, fixed so that every run sorts the same arrays
+	 */
+	private static final long SEED = 47;
+
+	/**
+	 * A task measured by the runner.
+	 */
+	private abstract static class Benchmark {
+		/**
+		 * Name of the benchmark in the baseline
+		 */
+		final String name;
+		/**
+		 * Number of times the task runs in a measured run, for tasks too fast to time alone
+		 */
+		final int repeat;
+
+		Benchmark(String name, int repeat) {
+			this.name = name;
+			this.repeat = repeat;
+		}
+
+		/**
+		 * Prepares the input of the next run, outside of the measured time.
+		 */
+		void prepare() {
+		}
+
+		/**
+		 * Runs the task once.
+		 * @param executor	The executor to run the task on
+		 * @param listener	Listener of task events, or null
+		 */
+		abstract void run(ParallelExecutor executor, TaskListener listener);
+	}
+
+	/**
+	 * The results of a benchmark.
+	 */
+	private static final class Result {
+		/**
+		 * Millions of elements per second, of the median run
+		 */
+		final double throughput;
+		/**
+		 * Bytes allocated per run
+		 */
+		final double allocated;
+		/**
+		 * Milliseconds of garbage collection per run
+		 */
+		final double gcMillis;
+
+		Result(double throughput, double allocated, double gcMillis) {
+			this.throughput = throughput;
+			this.allocated = allocated;
+			this.gcMillis = gcMillis;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new LinkedHashMap<String, String>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-record") || args[i].equals("-force")) {
+				options.put(args[i].substring(1), "true");
+			}
+			else if(args[i].startsWith("-") && i + 1 < args.length) {
+				options.put(args[i].substring(1), args[++i]);
+			}
+			else {
+				System.err.println("unknown option: " + args[i]);
+				System.exit(100);
+			}
+		}
+		boolean record = options.containsKey("record");
+		Path baselinePath = Paths.get(option(options, "baseline", DEFAULT_BASELINE));
+		Map<String, Object> baseline = null;
+		if(!record) {
+			if(!Files.exists(baselinePath)) {
+				System.err.println("no baseline at " + baselinePath + ", run with -record first");
+				System.exit(100);
+			}
+			baseline = Json.parse(new String(Files.readAllBytes(baselinePath), StandardCharsets.UTF_8));
+		}
+		int length = (int) setting(options, baseline, "length", 1000000);
+		int parallelism = (int) setting(options, baseline, "parallelism", Runtime.getRuntime().availableProcessors());
+		int warmup = (int) setting(options, baseline, "warmup", 5);
+		int iterations = (int) setting(options, baseline, "iterations", 11);
+		double tolerance = Double.parseDouble(option(options, "tolerance", "0.2"));
+		String only = option(options, "only", "");
+		String jfr = options.get("jfr");
+		if(baseline != null) {
+			String mismatch = mismatch(baseline, parallelism);
+			if(mismatch != null && !options.containsKey("force")) {
+				System.err.println("the baseline " + mismatch + ": record a baseline for this machine with -record,"
+						+ " or compare anyway with -force");
+				System.exit(100);
+			}
+			if(mismatch != null) {
+				System.err.println("warning: the baseline " + mismatch + ", so the throughput comparison is not meaningful");
+			}
+		}
+
+		ParallelExecutor executor = ParallelExecutor.withParallelism(parallelism);
+		TaskListener listener = (jfr != null) ? new JfrTaskListener() : null;
+		if(jfr != null) {
+			Files.createDirectories(Paths.get(jfr));
+		}
+		Map<String, Object> results = new LinkedHashMap<String, Object>();
+		int regressions = 0;
+		System.out.println(String.format("%-14s %12s %14s %10s", "benchmark", "Melem/s", "alloc B/run", "GC ms/run"));
+		for(Benchmark benchmark : benchmarks(length)) {
+			if(!benchmark.name.startsWith(only)) {
+				continue;
+			}
+			Recording recording = null;
+			if(jfr != null) {
+				recording = new Recording();
+				recording.enable("parallelzo.Split");
+				recording.enable("parallelzo.Leaf");
+				recording.enable("parallelzo.Partition");
+				recording.enable("jdk.GarbageCollection");
+				recording.enable("jdk.GCHeapSummary");
+				recording.enable("jdk.ThreadAllocationStatistics");
+				recording.start();
+			}
+			Result result = measure(benchmark, executor, listener, length, warmup, iterations);
+			if(recording != null) {
+				recording.stop();
+				recording.dump(Paths.get(jfr, benchmark.name + ".jfr"));
+				recording.close();
+			}
+			Map<String, Object> values = new LinkedHashMap<String, Object>();
+			values.put("throughput", round(result.throughput));
+			values.put("allocatedBytesPerRun", Math.round(result.allocated));
+			values.put("gcMillisPerRun", round(result.gcMillis));
+			results.put(benchmark.name, values);
+			String line = String.format("%-14s %12.2f %14d %10.2f", benchmark.name, result.throughput,
+					Math.round(result.allocated), result.gcMillis);
+			if(baseline != null) {
+				String verdict = compare(baseline, benchmark.name, result, tolerance);
+				if(verdict.startsWith("REGRESSION")) {
+					regressions++;
+				}
+				line += "  " + verdict;
+			}
+			System.out.println(line);
+		}
+
+		Map<String, Object> document = new LinkedHashMap<String, Object>();
+		document.put("version", 1);
+		document.put("java", System.getProperty("java.version"));
+		document.put("processors", Runtime.getRuntime().availableProcessors());
+		document.put("length", length);
+		document.put("parallelism", parallelism);
+		document.put("warmup", warmup);
+		document.put("iterations", iterations);
+		document.put("benchmarks", results);
+		String json = Json.write(document);
+		if(record) {
+			if(baselinePath.getParent() != null) {
+				Files.createDirectories(baselinePath.getParent());
+			}
+			Files.write(baselinePath, json.getBytes(StandardCharsets.UTF_8));
+			System.out.println("baseline written to " + baselinePath);
+		}
+		if(options.containsKey("out")) {
+			Files.write(Paths.get(options.get("out")), json.getBytes(StandardCharsets.UTF_8));
+		}
+		if(baseline != null) {
+			System.out.println(regressions + " regressions, tolerance " + tolerance);
+		}
+		System.exit(Math.min(regressions, 100));
+	}
+
+	/**
+	 * @return	The benchmarks, each on its own random array
+	 */
+	private static List<Benchmark> benchmarks(final int length) {
+		Random random = new Random(SEED);
+		final int[] ints = new int[length];
+		final long[] longs = new long[length];
+		final double[] doubles = new double[length];
+		final Integer[] boxed = new Integer[length];
+		for(int i = 0; i < length; i++) {
+			ints[i] = random.nextInt();
+			longs[i] = random.nextLong();
+			doubles[i] = random.nextDouble();
+			boxed[i] = random.nextInt();
+		}
+		final int[] intWork = new int[length];
+		final long[] longWork = new long[length];
+		final double[] doubleWork = new double[length];
+		final Integer[] boxedWork = new Integer[length];
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new Benchmark("qsort.int", 1) {
+			@Override
+			void prepare() {
+				System.arraycopy(ints, 0, intWork, 0, length);
+			}
+
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new QSortIntTask(intWork, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("qsort.long", 1) {
+			@Override
+			void prepare() {
+				System.arraycopy(longs, 0, longWork, 0, length);
+			}
+
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new QSortLongTask(longWork, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("qsort.double", 1) {
+			@Override
+			void prepare() {
+				System.arraycopy(doubles, 0, doubleWork, 0, length);
+			}
+
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new QSortDoubleTask(doubleWork, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("qsort.array", 1) {
+			@Override
+			void prepare() {
+				System.arraycopy(boxed, 0, boxedWork, 0, length);
+			}
+
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new QSortArrayTask<Integer>(boxedWork, 0, length - 1, new Cancellation(),
+						listener));
+			}
+		});
+		benchmarks.add(new Benchmark("min.int", 20) {
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new MinIntTask(ints, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("max.int", 20) {
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new MaxIntTask(ints, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("min.double", 20) {
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new MinDoubleTask(doubles, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("max.double", 20) {
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new MaxDoubleTask(doubles, 0, length - 1, new Cancellation(), listener));
+			}
+		});
+		benchmarks.add(new Benchmark("min.array", 5) {
+			@Override
+			void run(ParallelExecutor executor, TaskListener listener) {
+				executor.getBackend().invoke(new MinArrayTask<Integer>(boxed, 0, length - 1, new Cancellation(),
+						listener));
+			}
+		});
+		return benchmarks;
+	}
+
+	/**
+	 * Runs a benchmark, and measures its runs.
+	 * @return	The results of the benchmark
+	 */
+	private static Result measure(Benchmark benchmark, ParallelExecutor executor, TaskListener listener,
+			int length, int warmup, int iterations) {
+		for(int i = 0; i < warmup; i++) {
+			benchmark.prepare();
+			for(int r = 0; r < benchmark.repeat; r++) {
+				benchmark.run(executor, listener);
+			}
+		}
+		long[] times = new long[iterations];
+		long allocated = 0;
+		long gcMillis = 0;
+		for(int i = 0; i < iterations; i++) {
+			benchmark.prepare();
+			long allocatedBefore = allocatedBytes();
+			long gcBefore = gcMillis();
+			long begin = System.nanoTime();
+			for(int r = 0; r < benchmark.repeat; r++) {
+				benchmark.run(executor, listener);
+			}
+			times[i] = System.nanoTime() - begin;
+			gcMillis += gcMillis() - gcBefore;
+			allocated += allocatedBytes() - allocatedBefore;
+		}
+		Arrays.sort(times);
+		long median = Math.max(1, times[iterations / 2]);
+		double runs = (double) iterations * benchmark.repeat;
+		return new Result((double) length * benchmark.repeat * 1000 / median, allocated / runs, gcMillis / runs);
+	}
+
+	/**
+	 * Compares the results of a benchmark with the baseline.
+	 * @return	A description of the change, starting with <code>REGRESSION</code> if the benchmark regressed
+	 */
+	@SuppressWarnings("unchecked")
+	private static String compare(Map<String, Object> baseline, String name, Result result, double tolerance) {
+		Map<String, Object> benchmarks = (Map<String, Object>) baseline.get("benchmarks");
+		Map<String, Object> base = (benchmarks != null) ? (Map<String, Object>) benchmarks.get(name) : null;
+		if(base == null) {
+			return "new, not in the baseline";
+		}
+		double throughput = ((Number) base.get("throughput")).doubleValue();
+		double allocated = ((Number) base.get("allocatedBytesPerRun")).doubleValue();
+		double gcMillis = ((Number) base.get("gcMillisPerRun")).doubleValue();
+		String change = String.format("%+.1f%%", (result.throughput / throughput - 1) * 100);
+		List<String> reasons = new ArrayList<String>();
+		if(result.throughput < throughput * (1 - tolerance)) {
+			reasons.add("throughput " + change);
+		}
+		if(result.allocated > allocated * (1 + tolerance) + ALLOCATION_SLACK) {
+			reasons.add("allocation " + Math.round(allocated) + " -> " + Math.round(result.allocated) + " B");
+		}
+		if(result.gcMillis > gcMillis * (1 + tolerance) + GC_SLACK_MILLIS) {
+			reasons.add(String.format("GC %.2f -> %.2f ms", gcMillis, result.gcMillis));
+		}
+		return reasons.isEmpty() ? "ok " + change : "REGRESSION " + String.join(", ", reasons);
+	}
+
+	/**
+	 * Checks that a baseline was measured on the same number of processors and with the same parallelism.
+	 * @param baseline		The baseline
+	 * @param parallelism	Parallelism of this run
+	 * @return	A description of the difference, or null if there is none
+	 */
+	private static String mismatch(Map<String, Object> baseline, int parallelism) {
+		int processors = Runtime.getRuntime().availableProcessors();
+		Object recordedProcessors = baseline.get("processors");
+		Object recordedParallelism = baseline.get("parallelism");
+		if(!(recordedProcessors instanceof Number) || !(recordedParallelism instanceof Number)) {
+			return "does not record the processors and parallelism it was measured with";
+		}
+		if(((Number) recordedProcessors).intValue() != processors) {
+			return "was recorded on " + ((Number) recordedProcessors).intValue() + " processors, and this machine has "
+					+ processors;
+		}
+		if(((Number) recordedParallelism).intValue() != parallelism) {
+			return "was recorded with parallelism " + ((Number) recordedParallelism).intValue() + ", and this run uses "
+					+ parallelism;
+		}
+		return null;
+	}
+
+	/**
+	 * @return	Bytes allocated so far by all of the live threads
+	 */
+	private static long allocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long total = 0;
+		for(long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if(bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return	Milliseconds spent in garbage collection so far
+	 */
+	private static long gcMillis() {
+		long total = 0;
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(0, collector.getCollectionTime());
+		}
+		return total;
+	}
+
+	/**
+	 * @return	The value of an option, or <code>defaultValue</code> if it is not given
+	 */
+	private static String option(Map<String, String> options, String name, String defaultValue) {
+		String value = options.get(name);
+		return (value != null) ? value : defaultValue;
+	}
+
+	/**
+	 * @return	The value of a setting given as an option, or else recorded in the baseline,
+	 * 			or else <code>defaultValue</code>
+	 */
+	private static double setting(Map<String, String> options, Map<String, Object> baseline, String name,
+			double defaultValue) {
+		if(options.containsKey(name)) {
+			return Double.parseDouble(options.get(name));
+		}
+		if(baseline != null && baseline.get(name) instanceof Number) {
+			return ((Number) baseline.get(name)).doubleValue();
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * @return	The value rounded to two decimal places
+	 */
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+}
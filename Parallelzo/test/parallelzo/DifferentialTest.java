@@ -0,0 +1,954 @@
+package parallelzo;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import parallelzo.Inputs.Shape;
+import parallelzo.backend.ScopedBackend;
+import parallelzo.backend.SequentialBackend;
+import parallelzo.io.SortedDoubleFile;
+import parallelzo.io.SortedIntFile;
+import parallelzo.max.MaxDoubleTask;
+import parallelzo.max.MaxIntTask;
+import parallelzo.min.MinArrayTask;
+import parallelzo.min.MinIntTask;
+import parallelzo.qsort.EytzingerDoubleIndex;
+import parallelzo.qsort.EytzingerIntIndex;
+import parallelzo.qsort.QSortArrayTask;
+import parallelzo.qsort.QSortDoubleTask;
+import parallelzo.qsort.QSortIntTask;
+import parallelzo.sets.SetOperation;
+
+/**
+ * DifferentialTest runs every sort, reduction, search, set operation, scan and filter of
+ * {@link ParallelExecutor}, and the sorted files, on random arrays of every {@link Inputs.Shape shape}
+ * and of the lengths of {@link Inputs#LENGTHS}, on pools and backends of several sizes,
+ * and compares the results with {@link java.util.Arrays#sort(int[]) Arrays.sort} and sequential loops. <br />
+ * Usage: <code>java parallelzo.DifferentialTest [seed [rounds]]</code>. Every round adds a random length.
+ * Failures are printed with the seed, executor, shape and length that reproduce them,
+ * and the exit status is the number of failures, at most 100.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class DifferentialTest {
+	/**
+	 * Longest random length added by every round
+	 */
+	private static final int MAX_RANDOM_LENGTH = 300000;
+	/**
+	 * Length of the array of the many NaNs check, longer than the segments sorted in parallel
+	 */
+	private static final int NAN_LENGTH = 200000;
+	/**
+	 * Length of the prefix shared by the keys of the long prefix check
+	 */
+	private static final int PREFIX_LENGTH = 1000;
+	/**
+	 * Number of keys of the long prefix check, enough to be sorted by several tasks
+	 */
+	private static final int PREFIX_KEYS = 3000;
+	/**
+	 * Time a task of the single thread check blocks for its subtask, in milliseconds
+	 */
+	private static final long BLOCK_MILLIS = 200;
+	/**
+	 * Names of the groups of checks run on every input, for failure messages
+	 */
+	private static final String[] GROUPS = {"sorts", "reductions", "searches", "set operations",
+			"scans and filters", "batches"};
+	/**
+	 * Seed of the random inputs
+	 */
+	private final long seed;
+	/**
+	 * Number of failed checks
+	 */
+	private int failures;
+	/**
+	 * Number of passed checks
+	 */
+	private int passes;
+	/**
+	 * Description of the running case, for failure messages
+	 */
+	private String context;
+
+	/**
+	 * @param seed	Seed of the random inputs
+	 */
+	public DifferentialTest(long seed) {
+		this.seed = seed;
+	}
+
+	public static void main(String[] args) {
+		long seed = (args.length > 0) ? Long.parseLong(args[0]) : System.nanoTime();
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+		DifferentialTest test = new DifferentialTest(seed);
+		long begin = System.nanoTime();
+		test.run(executors(), rounds);
+		System.out.println("seed " + seed + ": " + test.passes + " passed, " + test.failures + " failed, in "
+				+ (System.nanoTime() - begin) / 1000000 + " ms");
+		System.exit(Math.min(test.failures, 100));
+	}
+
+	/**
+	 * @return	Executors of several parallelism levels and of every backend
+	 */
+	static ParallelExecutor[] executors() {
+		return new ParallelExecutor[] {ParallelExecutor.withParallelism(1), ParallelExecutor.withParallelism(2),
+				ParallelExecutor.withParallelism(7), ParallelExecutor.common(),
+				ParallelExecutor.using(new SequentialBackend()), ParallelExecutor.using(new ScopedBackend(3))};
+	}
+
+	/**
+	 * @return	Number of failed checks so far
+	 */
+	public int getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Runs every check on every executor, shape and length.
+	 * @param executors		The executors to run the checks on
+	 * @param rounds		Number of rounds, each with another random length
+	 */
+	public void run(ParallelExecutor[] executors, int rounds) {
+		run(executors, rounds, 0);
+	}
+
+	/**
+	 * Runs every check on every executor, shape and length, until a deadline.
+	 * @param executors		The executors to run the checks on
+	 * @param rounds		Number of rounds, each with another random length
+	 * @param deadline		{@link java.lang.System#nanoTime()} after which no more cases are started, or 0
+	 */
+	public void run(ParallelExecutor[] executors, int rounds, long deadline) {
+		Random random = new Random(seed);
+		context = "seed " + seed + ", sequential backend";
+		try {
+			checkSingleThread();
+		}
+		catch(Throwable t) {
+			fail("single thread check threw " + describe(t));
+		}
+		for(int round = 0; round < rounds; round++) {
+			int[] lengths = Arrays.copyOf(Inputs.LENGTHS, Inputs.LENGTHS.length + 1);
+			lengths[lengths.length - 1] = random.nextInt(MAX_RANDOM_LENGTH);
+			for(int e = 0; e < executors.length; e++) {
+				long largeSeed = random.nextLong();
+				context = "seed " + seed + ", executor " + e + ", large inputs, case seed " + largeSeed;
+				try {
+					checkLongPrefixes(executors[e], new Random(largeSeed));
+					checkManyNaNs(executors[e], new Random(largeSeed));
+				}
+				catch(Throwable t) {
+					fail("large inputs threw " + describe(t));
+				}
+				for(int length : lengths) {
+					for(Shape shape : Shape.values()) {
+						if(deadline != 0 && System.nanoTime() - deadline > 0) {
+							return;
+						}
+						long caseSeed = random.nextLong();
+						context = "seed " + seed + ", executor " + e + ", " + shape + ", length " + length
+								+ ", case seed " + caseSeed;
+						runCase(executors[e], shape, length, new Random(caseSeed));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs every check on one input.
+	 * @param executor		The executor to run the checks on
+	 * @param shape			Shape of the input
+	 * @param length		Length of the input
+	 * @param random		Source of the input
+	 */
+	private void runCase(ParallelExecutor executor, Shape shape, int length, Random random) {
+		int[] ints = Inputs.ints(shape, length, random);
+		int[] sorted = ints.clone();
+		Arrays.sort(sorted);
+		for(int group = 0; group < GROUPS.length; group++) {
+			try {
+				switch(group) {
+				case 0:
+					checkSorts(executor, ints, sorted, random);
+					break;
+				case 1:
+					checkReductions(executor, ints, sorted, random);
+					break;
+				case 2:
+					checkSearches(executor, ints, sorted, random);
+					break;
+				case 3:
+					checkSetOperations(executor, shape, sorted, random);
+					break;
+				case 4:
+					checkScansAndFilters(executor, ints);
+					break;
+				default:
+					checkBatches(executor, ints, random);
+					break;
+				}
+			}
+			catch(Throwable t) {
+				fail(GROUPS[group] + " threw " + describe(t));
+			}
+		}
+	}
+
+	/**
+	 * Checks the sorts of every element type against {@link java.util.Arrays#sort(int[]) Arrays.sort}.
+	 */
+	private void checkSorts(ParallelExecutor executor, int[] ints, int[] sorted, Random random) {
+		int[] a = ints.clone();
+		executor.sort(a);
+		check(Arrays.equals(a, sorted), "sort(int[])");
+
+		a = ints.clone();
+		executor.getBackend().invoke(new QSortIntTask(a));
+		check(Arrays.equals(a, sorted), "QSortIntTask");
+
+		a = ints.clone();
+		executor.sortAsync(a).join();
+		check(Arrays.equals(a, sorted), "sortAsync(int[])");
+
+		long[] longs = Inputs.longs(ints);
+		check(Arrays.equals(sortedCopy(executor, longs), Inputs.longs(sorted)), "sort(long[])");
+
+		double[] doubles = Inputs.doubles(ints);
+		double[] d = doubles.clone();
+		executor.sort(d);
+		check(numericEquals(d, Inputs.doubles(sorted)), "sort(double[])");
+
+		d = doubles.clone();
+		executor.getBackend().invoke(new QSortDoubleTask(d));
+		check(numericEquals(d, Inputs.doubles(sorted)), "QSortDoubleTask");
+
+		double[] specials = Inputs.specialDoubles(ints, random);
+		double[] expected = specials.clone();
+		Arrays.sort(expected);
+		d = specials.clone();
+		executor.sort(d, DoubleOrder.TOTAL);
+		check(Arrays.equals(d, expected), "sort(double[], TOTAL)");
+
+		d = specials.clone();
+		executor.sort(d);
+		check(sameValues(d, expected), "sort(double[]) with NaNs");
+
+		Integer[] boxed = Inputs.boxed(ints);
+		Integer[] boxedSorted = Inputs.boxed(sorted);
+		Integer[] o = boxed.clone();
+		executor.sort(o);
+		check(Arrays.equals(o, boxedSorted), "sort(T[])");
+
+		o = boxed.clone();
+		executor.getBackend().invoke(new QSortArrayTask<Integer>(o));
+		check(Arrays.equals(o, boxedSorted), "QSortArrayTask");
+
+		o = boxed.clone();
+		executor.sampleSort(o);
+		check(Arrays.equals(o, boxedSorted), "sampleSort(T[])");
+
+		ArrayList<Integer> list = new ArrayList<Integer>(Arrays.asList(boxed));
+		executor.sort(list);
+		check(list.equals(Arrays.asList(boxedSorted)), "sort(ArrayList)");
+
+		String[] strings = Inputs.strings(ints);
+		String[] s = strings.clone();
+		String[] expectedStrings = strings.clone();
+		Arrays.sort(expectedStrings);
+		executor.sort(s);
+		check(Arrays.equals(s, expectedStrings), "sort(String[])");
+
+		byte[][] bytes = Inputs.bytes(strings);
+		byte[][] expectedBytes = bytes.clone();
+		Arrays.sort(expectedBytes, new java.util.Comparator<byte[]>() {
+			@Override
+			public int compare(byte[] x, byte[] y) {
+				return Arrays.compareUnsigned(x, y);
+			}
+		});
+		executor.sort(bytes);
+		check(Arrays.deepEquals(bytes, expectedBytes), "sort(byte[][])");
+
+		check(Arrays.equals(executor.streams().sorted(IntStream.of(ints)).toArray(), sorted), "sorted(IntStream)");
+	}
+
+	/**
+	 * Checks that a {@link SequentialBackend} runs nested joins on its single thread, even when a task blocks
+	 * while its subtask waits to run: a pool that compensates for the blocked worker starts a second thread
+	 * for the subtask, and the single thread instead runs it after the block times out.
+	 */
+	private void checkSingleThread() {
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		final CountDownLatch released = new CountDownLatch(1);
+		new SequentialBackend().invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				threads.add(Thread.currentThread());
+				RecursiveAction subtask = new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						threads.add(Thread.currentThread());
+						released.countDown();
+					}
+				};
+				subtask.fork();
+				try {
+					ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+						@Override
+						public boolean block() throws InterruptedException {
+							released.await(BLOCK_MILLIS, TimeUnit.MILLISECONDS);
+							return true;
+						}
+
+						@Override
+						public boolean isReleasable() {
+							return released.getCount() == 0;
+						}
+					});
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				subtask.join();
+			}
+		});
+		check(threads.size() == 1, "SequentialBackend nested join on a single thread");
+	}
+
+	/**
+	 * Checks the String and byte[] sorts on keys that share a prefix much longer than
+	 * the number of nested tasks a stack can hold.
+	 */
+	private void checkLongPrefixes(ParallelExecutor executor, Random random) {
+		char[] prefix = new char[PREFIX_LENGTH];
+		Arrays.fill(prefix, 'k');
+		String[] strings = new String[PREFIX_KEYS];
+		for(int i = 0; i < strings.length; i++) {
+			strings[i] = new String(prefix) + random.nextInt(PREFIX_KEYS / 4);
+		}
+		String[] expectedStrings = strings.clone();
+		Arrays.sort(expectedStrings);
+		byte[][] bytes = Inputs.bytes(strings);
+		byte[][] expectedBytes = bytes.clone();
+		Arrays.sort(expectedBytes, new java.util.Comparator<byte[]>() {
+			@Override
+			public int compare(byte[] x, byte[] y) {
+				return Arrays.compareUnsigned(x, y);
+			}
+		});
+		executor.sort(strings);
+		check(Arrays.equals(strings, expectedStrings), "sort(String[]) of long prefixes");
+		executor.sort(bytes);
+		check(Arrays.deepEquals(bytes, expectedBytes), "sort(byte[][]) of long prefixes");
+	}
+
+	/**
+	 * Checks the sorts of a double array a tenth of which is NaN, whole and as a long segment,
+	 * against {@link java.util.Arrays#sort(double[]) Arrays.sort}.
+	 */
+	private void checkManyNaNs(ParallelExecutor executor, Random random) {
+		double[] array = new double[NAN_LENGTH];
+		for(int i = 0; i < array.length; i++) {
+			array[i] = (random.nextInt(10) == 0) ? Double.NaN : random.nextInt(1000) - 500.0;
+		}
+		int[] offsets = {0, 10, array.length};
+		double[] expected = array.clone();
+		Arrays.sort(expected);
+		double[] a = array.clone();
+		executor.sort(a);
+		check(sameValues(a, expected), "sort(double[]) of many NaNs");
+		a = array.clone();
+		executor.sortSegments(a, offsets);
+		Arrays.sort(array, 0, 10);
+		Arrays.sort(array, 10, array.length);
+		check(Arrays.equals(a, array), "sortSegments(double[]) of many NaNs");
+	}
+
+	/**
+	 * Checks the reductions against sequential loops, and their failure on empty arrays.
+	 */
+	private void checkReductions(ParallelExecutor executor, int[] ints, int[] sorted, Random random) {
+		double[] doubles = Inputs.doubles(ints);
+		Integer[] boxed = Inputs.boxed(ints);
+		ArrayList<Integer> list = new ArrayList<Integer>(Arrays.asList(boxed));
+		if(ints.length == 0) {
+			checkEmpty(executor);
+			return;
+		}
+		int min = sorted[0];
+		int max = sorted[sorted.length - 1];
+		check(executor.min(ints) == min, "min(int[])");
+		check(executor.max(ints) == max, "max(int[])");
+		check(executor.minAsync(ints).join() == min, "minAsync(int[])");
+		check(executor.maxAsync(ints).join() == max, "maxAsync(int[])");
+		check(executor.min(doubles) == min / 4.0, "min(double[])");
+		check(executor.max(doubles) == max / 4.0, "max(double[])");
+		check(executor.min(boxed) == min, "min(T[])");
+		check(executor.max(boxed) == max, "max(T[])");
+		check(executor.min(list) == min, "min(ArrayList)");
+		check(executor.max(list) == max, "max(ArrayList)");
+
+		double[] specials = Inputs.specialDoubles(ints, random);
+		double[] expected = specials.clone();
+		Arrays.sort(expected);
+		check(Double.compare(executor.min(specials, DoubleOrder.TOTAL), expected[0]) == 0, "min(double[], TOTAL)");
+		check(Double.compare(executor.max(specials, DoubleOrder.TOTAL), expected[expected.length - 1]) == 0,
+				"max(double[], TOTAL)");
+
+		check(Arrays.equals(executor.distinct(ints, false), IntStream.of(sorted).distinct().toArray()),
+				"distinct(int[])");
+		check(Arrays.equals(executor.distinct(sorted, true), IntStream.of(sorted).distinct().toArray()),
+				"distinct(int[], sorted)");
+		int[] distinct = IntStream.of(sorted).distinct().toArray();
+		check(Arrays.equals(executor.distinct(boxed, false), Inputs.boxed(distinct)), "distinct(T[])");
+		check(executor.distinct(list, false).equals(Arrays.asList(Inputs.boxed(distinct))), "distinct(ArrayList)");
+		check(sameValues(executor.distinct(specials, false), distinct(expected)), "distinct(double[]) with NaNs");
+		if((long) max - min < 1 << 20) {
+			int[] counts = new int[max - min + 1];
+			for(int value : ints) {
+				counts[value - min]++;
+			}
+			check(Arrays.equals(executor.histogram(ints, min, max), counts), "histogram(int[])");
+		}
+	}
+
+	/**
+	 * Checks that the reductions of the executor fail on empty arrays, and that
+	 * the tasks themselves, given <code>end = -1</code>, fail rather than return a value.
+	 */
+	private void checkEmpty(ParallelExecutor executor) {
+		int[] ints = new int[0];
+		double[] doubles = new double[0];
+		Integer[] boxed = new Integer[0];
+		try {
+			executor.min(ints);
+			fail("min(int[]) of an empty array returned");
+		}
+		catch(NoSuchElementException e) {
+			passes++;
+		}
+		try {
+			executor.max(doubles);
+			fail("max(double[]) of an empty array returned");
+		}
+		catch(NoSuchElementException e) {
+			passes++;
+		}
+		try {
+			executor.min(boxed);
+			fail("min(T[]) of an empty array returned");
+		}
+		catch(NoSuchElementException e) {
+			passes++;
+		}
+		try {
+			executor.max(new ArrayList<Integer>());
+			fail("max(ArrayList) of an empty list returned");
+		}
+		catch(NoSuchElementException e) {
+			passes++;
+		}
+		try {
+			executor.min(doubles, DoubleOrder.TOTAL);
+			fail("min(double[], TOTAL) of an empty array returned");
+		}
+		catch(NoSuchElementException e) {
+			passes++;
+		}
+		try {
+			new MinIntTask(ints).invoke();
+			fail("MinIntTask of an empty array returned");
+		}
+		catch(RuntimeException e) {
+			passes++;
+		}
+		try {
+			new MaxIntTask(ints).invoke();
+			fail("MaxIntTask of an empty array returned");
+		}
+		catch(RuntimeException e) {
+			passes++;
+		}
+		try {
+			new MaxDoubleTask(doubles).invoke();
+			fail("MaxDoubleTask of an empty array returned");
+		}
+		catch(RuntimeException e) {
+			passes++;
+		}
+		try {
+			new MinArrayTask<Integer>(boxed).invoke();
+			fail("MinArrayTask of an empty array returned");
+		}
+		catch(RuntimeException e) {
+			passes++;
+		}
+	}
+
+	/**
+	 * Checks the batch searches, the Eytzinger indexes and the sorted files against plain binary searches.
+	 */
+	private void checkSearches(ParallelExecutor executor, int[] ints, int[] sorted, Random random) throws IOException {
+		int[] keys = new int[ints.length + 1];
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = (sorted.length > 0 && random.nextBoolean()) ? sorted[random.nextInt(sorted.length)] + random.nextInt(3) - 1
+					: random.nextInt();
+		}
+		int[] lower = new int[keys.length];
+		int[] upper = new int[keys.length];
+		for(int i = 0; i < keys.length; i++) {
+			lower[i] = bound(sorted, keys[i], false);
+			upper[i] = bound(sorted, keys[i], true);
+		}
+		check(Arrays.equals(executor.lowerBounds(sorted, keys), lower), "lowerBounds(int[])");
+		check(Arrays.equals(executor.upperBounds(sorted, keys), upper), "upperBounds(int[])");
+		EytzingerIntIndex index = executor.index(sorted);
+		check(Arrays.equals(index.bounds(keys, false), lower), "EytzingerIntIndex lower bounds");
+		check(Arrays.equals(index.bounds(keys, true), upper), "EytzingerIntIndex upper bounds");
+		check(index.lowerBound(keys[0]) == lower[0] && index.upperBound(keys[0]) == upper[0], "EytzingerIntIndex bound");
+
+		double[] doubles = Inputs.doubles(sorted);
+		double[] doubleKeys = new double[keys.length];
+		for(int i = 0; i < keys.length; i++) {
+			doubleKeys[i] = keys[i] / 4.0;
+		}
+		check(Arrays.equals(executor.lowerBounds(doubles, doubleKeys), lower), "lowerBounds(double[])");
+		check(Arrays.equals(executor.upperBounds(doubles, doubleKeys), upper), "upperBounds(double[])");
+		EytzingerDoubleIndex doubleIndex = executor.index(doubles);
+		check(Arrays.equals(doubleIndex.bounds(doubleKeys, false), lower), "EytzingerDoubleIndex lower bounds");
+		check(Arrays.equals(doubleIndex.bounds(doubleKeys, true), upper), "EytzingerDoubleIndex upper bounds");
+
+		Path path = Files.createTempFile("parallelzo", ".sorted");
+		try {
+			SortedIntFile.write(executor, sorted, path, random.nextInt(64) + 1);
+			SortedIntFile file = SortedIntFile.open(path);
+			try {
+				boolean equal = Arrays.equals(file.toArray(), sorted) && file.length() == sorted.length;
+				if(sorted.length > 0) {
+					equal &= file.min() == sorted[0] && file.max() == sorted[sorted.length - 1];
+					int i = random.nextInt(sorted.length);
+					equal &= file.get(i) == sorted[i];
+				}
+				for(int key : keys) {
+					int found = file.binarySearch(key);
+					int expected = Arrays.binarySearch(sorted, key);
+					equal &= (expected < 0) ? found == expected : found >= 0 && sorted[found] == key;
+				}
+				check(equal, "SortedIntFile round trip");
+			}
+			finally {
+				file.close();
+			}
+
+			double[] specials = Inputs.specialDoubles(sorted, random);
+			Arrays.sort(specials);
+			SortedDoubleFile.write(executor, specials, path, random.nextInt(64) + 1);
+			SortedDoubleFile doubleFile = SortedDoubleFile.open(path);
+			try {
+				boolean equal = Arrays.equals(doubleFile.toArray(), specials) && doubleFile.length() == specials.length;
+				if(specials.length > 0) {
+					equal &= Double.compare(doubleFile.min(), specials[0]) == 0
+							&& Double.compare(doubleFile.max(), specials[specials.length - 1]) == 0;
+				}
+				for(int i = 0; i < Math.min(specials.length, 100); i++) {
+					double key = specials[random.nextInt(specials.length)];
+					int found = doubleFile.binarySearch(key);
+					equal &= found >= 0 && Double.compare(specials[found], key) == 0;
+				}
+				equal &= doubleFile.binarySearch(0.125) == Arrays.binarySearch(specials, 0.125);
+				check(equal, "SortedDoubleFile round trip");
+			}
+			finally {
+				doubleFile.close();
+			}
+		}
+		finally {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	/**
+	 * Checks the set operations of every element type against a sequential merge.
+	 */
+	private void checkSetOperations(ParallelExecutor executor, Shape shape, int[] sorted, Random random) {
+		int[] other = Inputs.ints(shape, random.nextInt(sorted.length + 1), random);
+		for(int i = 0; i < other.length; i++) {
+			if(sorted.length > 0 && random.nextBoolean()) {
+				other[i] = sorted[random.nextInt(sorted.length)];
+			}
+		}
+		Arrays.sort(other);
+		for(SetOperation operation : SetOperation.values()) {
+			int[] expected = apply(operation, sorted, other);
+			check(Arrays.equals(executor.apply(operation, sorted, other), expected), "apply(" + operation + ", int[])");
+			check(Arrays.equals(executor.apply(operation, Inputs.longs(sorted), Inputs.longs(other)),
+					Inputs.longs(expected)), "apply(" + operation + ", long[])");
+			check(Arrays.equals(executor.apply(operation, Inputs.boxed(sorted), Inputs.boxed(other)),
+					Inputs.boxed(expected)), "apply(" + operation + ", T[])");
+		}
+	}
+
+	/**
+	 * Checks the scans, filters and partitions against sequential loops.
+	 */
+	private void checkScansAndFilters(ParallelExecutor executor, int[] ints) {
+		int[] a = ints.clone();
+		executor.prefixSum(a, true);
+		int[] expected = ints.clone();
+		for(int i = 1; i < expected.length; i++) {
+			expected[i] += expected[i - 1];
+		}
+		check(Arrays.equals(a, expected), "prefixSum(int[], inclusive)");
+
+		long[] original = Inputs.longs(ints);
+		long[] longs = original.clone();
+		executor.prefixSum(longs, false);
+		long sum = 0;
+		boolean equal = true;
+		for(int i = 0; i < ints.length; i++) {
+			equal &= (longs[i] == sum);
+			sum += original[i];
+		}
+		check(equal, "prefixSum(long[], exclusive)");
+
+		Integer[] boxed = Inputs.boxed(ints);
+		executor.scan(boxed, new BinaryOperator<Integer>() {
+			@Override
+			public Integer apply(Integer x, Integer y) {
+				return Math.max(x, y);
+			}
+		}, Integer.MIN_VALUE, true);
+		equal = true;
+		int max = Integer.MIN_VALUE;
+		for(int i = 0; i < ints.length; i++) {
+			max = Math.max(max, ints[i]);
+			equal &= (boxed[i] == max);
+		}
+		check(equal, "scan(T[], max)");
+
+		IntPredicate odd = new IntPredicate() {
+			@Override
+			public boolean test(int value) {
+				return (value & 1) != 0;
+			}
+		};
+		int[] matching = IntStream.of(ints).filter(odd).toArray();
+		check(Arrays.equals(executor.filter(ints, odd), matching), "filter(int[])");
+		a = ints.clone();
+		int selected = executor.partition(a, odd);
+		int[] partitioned = IntStream.concat(IntStream.of(matching), IntStream.of(ints).filter(odd.negate())).toArray();
+		check(selected == matching.length && Arrays.equals(a, partitioned), "partition(int[])");
+		check(executor.filterReduce(ints, odd, new IntBinaryOperator() {
+			@Override
+			public int applyAsInt(int x, int y) {
+				return x + y;
+			}
+		}, 0) == IntStream.of(matching).sum(), "filterReduce(int[])");
+
+		double[] doubles = Inputs.doubles(ints);
+		double[] d = doubles.clone();
+		executor.scan(d, new DoubleBinaryOperator() {
+			@Override
+			public double applyAsDouble(double x, double y) {
+				return Math.max(x, y);
+			}
+		}, Double.NEGATIVE_INFINITY, false);
+		equal = true;
+		double dmax = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < doubles.length; i++) {
+			equal &= (d[i] == dmax);
+			dmax = Math.max(dmax, doubles[i]);
+		}
+		check(equal, "scan(double[], max, exclusive)");
+		d = doubles.clone();
+		executor.prefixSum(d, true);
+		equal = true;
+		double dsum = 0;
+		for(int i = 0; i < doubles.length; i++) {
+			dsum += doubles[i];
+			equal &= (d[i] == dsum);
+		}
+		check(equal, "prefixSum(double[], inclusive)");
+
+		DoublePredicate oddQuarter = new DoublePredicate() {
+			@Override
+			public boolean test(double value) {
+				return (Math.round(value * 4) & 1) != 0;
+			}
+		};
+		double[] matchingDoubles = Inputs.doubles(matching);
+		check(numericEquals(executor.filter(doubles, oddQuarter), matchingDoubles), "filter(double[])");
+		d = doubles.clone();
+		selected = executor.partition(d, oddQuarter);
+		check(selected == matching.length && numericEquals(d, Inputs.doubles(partitioned)), "partition(double[])");
+		check(executor.filterReduce(doubles, oddQuarter, new DoubleBinaryOperator() {
+			@Override
+			public double applyAsDouble(double x, double y) {
+				return x + y;
+			}
+		}, 0) == IntStream.of(matching).asLongStream().sum() / 4.0, "filterReduce(double[])");
+
+		Predicate<Integer> oddBoxed = new Predicate<Integer>() {
+			@Override
+			public boolean test(Integer value) {
+				return (value & 1) != 0;
+			}
+		};
+		Integer[] boxedInts = Inputs.boxed(ints);
+		check(Arrays.equals(executor.filter(boxedInts, oddBoxed), Inputs.boxed(matching)), "filter(T[])");
+		Integer[] o = boxedInts.clone();
+		selected = executor.partition(o, oddBoxed);
+		check(selected == matching.length && Arrays.equals(o, Inputs.boxed(partitioned)), "partition(T[])");
+		check(executor.filterReduce(boxedInts, oddBoxed, new BinaryOperator<Integer>() {
+			@Override
+			public Integer apply(Integer x, Integer y) {
+				return Math.min(x, y);
+			}
+		}, Integer.MAX_VALUE) == IntStream.of(matching).min().orElse(Integer.MAX_VALUE), "filterReduce(T[])");
+	}
+
+	/**
+	 * Checks the batch, segmented and merge operations, on the input divided into pieces.
+	 */
+	private void checkBatches(ParallelExecutor executor, int[] ints, Random random) {
+		int[] offsets = Inputs.offsets(ints.length, random, false);
+		int[][] pieces = new int[offsets.length - 1][];
+		double[][] doublePieces = new double[pieces.length][];
+		List<Integer[]> boxedPieces = new ArrayList<Integer[]>();
+		int[][] sortedPieces = new int[pieces.length][];
+		for(int i = 0; i < pieces.length; i++) {
+			pieces[i] = Arrays.copyOfRange(ints, offsets[i], offsets[i + 1]);
+			doublePieces[i] = Inputs.doubles(pieces[i]);
+			boxedPieces.add(Inputs.boxed(pieces[i]));
+			sortedPieces[i] = pieces[i].clone();
+			Arrays.sort(sortedPieces[i]);
+		}
+		int[] mins = new int[pieces.length];
+		int[] maxes = new int[pieces.length];
+		double[] doubleMins = new double[pieces.length];
+		double[] doubleMaxes = new double[pieces.length];
+		for(int i = 0; i < pieces.length; i++) {
+			mins[i] = sortedPieces[i][0];
+			maxes[i] = sortedPieces[i][sortedPieces[i].length - 1];
+			doubleMins[i] = mins[i] / 4.0;
+			doubleMaxes[i] = maxes[i] / 4.0;
+		}
+		check(Arrays.equals(executor.min(pieces), mins), "min(int[][])");
+		check(Arrays.equals(executor.max(pieces), maxes), "max(int[][])");
+		check(numericEquals(executor.min(doublePieces), doubleMins), "min(double[][])");
+		check(numericEquals(executor.max(doublePieces), doubleMaxes), "max(double[][])");
+
+		double[] doubles = Inputs.doubles(ints);
+		check(numericEquals(executor.minSegments(doubles, offsets), doubleMins), "minSegments(double[])");
+		check(numericEquals(executor.maxSegments(doubles, offsets), doubleMaxes), "maxSegments(double[])");
+		executor.sortSegments(doubles, offsets);
+		boolean equal = true;
+		for(int i = 0; i < pieces.length; i++) {
+			equal &= numericEquals(Arrays.copyOfRange(doubles, offsets[i], offsets[i + 1]),
+					Inputs.doubles(sortedPieces[i]));
+		}
+		check(equal, "sortSegments(double[])");
+
+		double[] specials = Inputs.specialDoubles(ints, random);
+		double[] expectedSpecials = specials.clone();
+		for(int i = 0; i < pieces.length; i++) {
+			Arrays.sort(expectedSpecials, offsets[i], offsets[i + 1]);
+		}
+		executor.sortSegments(specials, offsets);
+		check(Arrays.equals(specials, expectedSpecials), "sortSegments(double[]) with NaNs");
+
+		int[][] merged = new int[pieces.length][];
+		for(int i = 0; i < pieces.length; i++) {
+			merged[i] = sortedPieces[i].clone();
+		}
+		int[] all = ints.clone();
+		Arrays.sort(all);
+		check(Arrays.equals(executor.merge(merged), all), "merge(int[][])");
+
+		executor.sort(pieces);
+		executor.sort(doublePieces);
+		executor.sort(boxedPieces);
+		equal = true;
+		for(int i = 0; i < pieces.length; i++) {
+			equal &= Arrays.equals(pieces[i], sortedPieces[i]);
+			equal &= numericEquals(doublePieces[i], Inputs.doubles(sortedPieces[i]));
+			equal &= Arrays.equals(boxedPieces.get(i), Inputs.boxed(sortedPieces[i]));
+		}
+		check(equal, "sort(int[][], double[][], List<T[]>)");
+	}
+
+	/**
+	 * @return	A sorted copy of the array
+	 */
+	private static long[] sortedCopy(ParallelExecutor executor, long[] array) {
+		long[] copy = array.clone();
+		executor.sort(copy);
+		return copy;
+	}
+
+	/**
+	 * Searches a sorted array with a plain binary search.
+	 * @param array		The sorted array
+	 * @param key		The key to search for
+	 * @param upper		true for the index of the first element greater than the key,
+	 * 					false for the first element not less than it
+	 * @return	The bound of the key
+	 */
+	private static int bound(int[] array, int key, boolean upper) {
+		int lo = 0;
+		int hi = array.length;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(upper ? array[mid] <= key : array[mid] < key) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Applies a set operation to two sorted arrays with a sequential merge.
+	 * @return	The result of the operation
+	 */
+	private static int[] apply(SetOperation operation, int[] a, int[] b) {
+		int[] result = new int[a.length + b.length];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while(i < a.length || j < b.length) {
+			if(j == b.length || (i < a.length && a[i] < b[j])) {
+				if(operation != SetOperation.INTERSECTION) {
+					result[n++] = a[i];
+				}
+				i++;
+			}
+			else if(i == a.length || b[j] < a[i]) {
+				if(operation == SetOperation.UNION || operation == SetOperation.MERGE) {
+					result[n++] = b[j];
+				}
+				j++;
+			}
+			else {
+				if(operation != SetOperation.DIFFERENCE) {
+					result[n++] = a[i];
+				}
+				if(operation == SetOperation.MERGE) {
+					result[n++] = b[j];
+				}
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * @param sorted	An array sorted in the total order
+	 * @return	The values that differ with <code>==</code> from the value before them, so every NaN
+	 */
+	private static double[] distinct(double[] sorted) {
+		double[] result = new double[sorted.length];
+		int n = 0;
+		for(int i = 0; i < sorted.length; i++) {
+			if(i == 0 || sorted[i] != sorted[i - 1]) {
+				result[n++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * Compares two double arrays with <code>==</code>, and NaN as equal to NaN,
+	 * as the numeric order orders NaNs last but not -0.0 and 0.0.
+	 */
+	private static boolean sameValues(double[] a, double[] b) {
+		if(a.length != b.length) {
+			return false;
+		}
+		for(int i = 0; i < a.length; i++) {
+			if(a[i] != b[i] && !(Double.isNaN(a[i]) && Double.isNaN(b[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param t		An unexpected exception or error
+	 * @return	The exception and the place it was thrown from
+	 */
+	private static String describe(Throwable t) {
+		StackTraceElement[] trace = t.getStackTrace();
+		return (trace.length > 0) ? t + " at " + trace[0] : t.toString();
+	}
+
+	/**
+	 * Compares two double arrays with <code>==</code>, so that -0.0 and 0.0 are equal,
+	 * as the numeric order does not order them.
+	 */
+	private static boolean numericEquals(double[] a, double[] b) {
+		if(a.length != b.length) {
+			return false;
+		}
+		for(int i = 0; i < a.length; i++) {
+			if(a[i] != b[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records the result of a check.
+	 * @param passed	true if the check passed
+	 * @param name		Name of the check
+	 */
+	private void check(boolean passed, String name) {
+		if(passed) {
+			passes++;
+		}
+		else {
+			fail(name + " differs from the reference");
+		}
+	}
+
+	/**
+	 * Records and prints a failure.
+	 * @param message	Description of the failure
+	 */
+	private void fail(String message) {
+		failures++;
+		System.err.println("FAIL " + message + " (" + context + ")");
+	}
+}
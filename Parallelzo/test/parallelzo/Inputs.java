@@ -0,0 +1,189 @@
+package parallelzo;
+import java.util.Random;
+
+/**
+ * Inputs generates the arrays the tests run the tasks on, in the shapes that
+ * trouble sorting and reduction algorithms. <br />
+ * Every shape is generated as ints, and the other element types are derived from them,
+ * so a failing case can be regenerated from its seed, shape and length alone.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public final class Inputs {
+	/**
+	 * Lengths every test runs on: the empty array, single elements, and the lengths around
+	 * {@link ParallelExecutor#INLINE_THRESHOLD} and the MINLEN of the tasks
+	 */
+	static final int[] LENGTHS = {0, 1, 2, 3, 17, 999, 1000, 1001, 9999, 10000, 10001, 50000};
+
+	/**
+	 * The shapes of the generated arrays.
+	 */
+	public enum Shape {
+		/** Uniformly random values over the whole int range */
+		RANDOM,
+		/** Random values from a range as long as the array, with duplicates */
+		DUPLICATES,
+		/** Random values from 4 distinct values */
+		FEW,
+		/** A single value repeated */
+		EQUAL,
+		/** Ascending values */
+		SORTED,
+		/** Descending values */
+		REVERSED,
+		/** Ascending and then descending values */
+		ORGAN_PIPE,
+		/** Short ascending runs */
+		SAWTOOTH
+	}
+
+	private Inputs() {
+	}
+
+	/**
+	 * @param shape		Shape of the array
+	 * @param length	Length of the array
+	 * @param random	Source of the random values
+	 * @return	A new int array
+	 */
+	public static int[] ints(Shape shape, int length, Random random) {
+		int[] array = new int[length];
+		int equal = random.nextInt();
+		for(int i = 0; i < length; i++) {
+			switch(shape) {
+			case RANDOM:
+				array[i] = random.nextInt();
+				break;
+			case DUPLICATES:
+				array[i] = random.nextInt(length) - length / 2;
+				break;
+			case FEW:
+				array[i] = random.nextInt(4) * 1000;
+				break;
+			case EQUAL:
+				array[i] = equal;
+				break;
+			case SORTED:
+				array[i] = i;
+				break;
+			case REVERSED:
+				array[i] = length - i;
+				break;
+			case ORGAN_PIPE:
+				array[i] = (i < length / 2) ? i : length - i;
+				break;
+			case SAWTOOTH:
+				array[i] = i % 64;
+				break;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * @param ints	The int values
+	 * @return	Long values in the same order as the ints, spread over the long range
+	 */
+	public static long[] longs(int[] ints) {
+		long[] array = new long[ints.length];
+		for(int i = 0; i < ints.length; i++) {
+			array[i] = ((long) ints[i] << 32) | (ints[i] & 0xffL);
+		}
+		return array;
+	}
+
+	/**
+	 * @param ints	The int values
+	 * @return	Double values in the same order as the ints, with fractions and negative zeros but no NaN
+	 */
+	public static double[] doubles(int[] ints) {
+		double[] array = new double[ints.length];
+		for(int i = 0; i < ints.length; i++) {
+			array[i] = (ints[i] == 0 && (i & 1) == 0) ? -0.0 : ints[i] / 4.0;
+		}
+		return array;
+	}
+
+	/**
+	 * @param ints		The int values
+	 * @param random	Source of the positions of the special values
+	 * @return	Double values with NaNs, infinities and zeros of both signs mixed in
+	 */
+	public static double[] specialDoubles(int[] ints, Random random) {
+		double[] array = doubles(ints);
+		double[] specials = {Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+				Double.MIN_VALUE, -Double.MAX_VALUE};
+		for(int i = 0; i < array.length; i++) {
+			if(random.nextInt(16) == 0) {
+				array[i] = specials[random.nextInt(specials.length)];
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * @param ints	The int values
+	 * @return	Boxed values equal to the ints
+	 */
+	public static Integer[] boxed(int[] ints) {
+		Integer[] array = new Integer[ints.length];
+		for(int i = 0; i < ints.length; i++) {
+			array[i] = ints[i];
+		}
+		return array;
+	}
+
+	/**
+	 * @param ints	The int values
+	 * @return	Strings sharing long prefixes, with the ints in their suffixes
+	 */
+	public static String[] strings(int[] ints) {
+		String[] array = new String[ints.length];
+		for(int i = 0; i < ints.length; i++) {
+			array[i] = "https://example.com/items/" + Integer.toHexString(ints[i] & 0xfff) + "/" + ints[i];
+		}
+		return array;
+	}
+
+	/**
+	 * @param strings	The strings
+	 * @return	The bytes of the strings, with a byte above 127 in some of them
+	 */
+	public static byte[][] bytes(String[] strings) {
+		byte[][] array = new byte[strings.length][];
+		for(int i = 0; i < strings.length; i++) {
+			array[i] = strings[i].getBytes(java.nio.charset.StandardCharsets.ISO_8859_1);
+			if(array[i].length > 20 && (strings[i].hashCode() & 1) == 0) {
+				array[i][20] = (byte) 0xe9;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Divides a length into random consecutive pieces, as segment offsets.
+	 * @param length	Length to divide
+	 * @param random	Source of the lengths of the pieces
+	 * @param empty		true to allow empty pieces
+	 * @return	The first index of every piece, followed by <code>length</code>
+	 */
+	public static int[] offsets(int length, Random random, boolean empty) {
+		int[] offsets = new int[length + 2];
+		int count = 0;
+		int position = 0;
+		while(position < length) {
+			offsets[count++] = position;
+			int piece = (random.nextInt(8) == 0) ? random.nextInt(length - position) + 1 : random.nextInt(40) + 1;
+			if(empty && random.nextInt(10) == 0) {
+				piece = 0;
+			}
+			position = Math.min(length, position + piece);
+		}
+		offsets[count++] = length;
+		int[] trimmed = new int[count];
+		System.arraycopy(offsets, 0, trimmed, 0, count);
+		return trimmed;
+	}
+}
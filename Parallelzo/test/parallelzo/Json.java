@@ -0,0 +1,216 @@
+package parallelzo;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Json writes and reads the small JSON documents of the benchmark baselines:
+ * objects of numbers, strings and nested objects, without arrays. <br />
+ * Objects are read into insertion ordered maps, and numbers into doubles.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+final class Json {
+	/**
+	 * The document being read
+	 */
+	private final String text;
+	/**
+	 * Index of the next character to read
+	 */
+	private int position;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Reads a document holding a single object.
+	 * @param text	The document
+	 * @return	The object
+	 * @throws IllegalArgumentException	if the document is not an object of numbers, strings and objects
+	 */
+	static Map<String, Object> parse(String text) {
+		Json json = new Json(text);
+		Map<String, Object> object = json.readObject();
+		json.skipSpaces();
+		if(json.position != text.length()) {
+			throw json.error("end of document");
+		}
+		return object;
+	}
+
+	/**
+	 * Writes an object of numbers, strings and objects, indented by tabs.
+	 * @param object	The object
+	 * @return	The document
+	 */
+	static String write(Map<String, ?> object) {
+		StringBuilder builder = new StringBuilder();
+		write(builder, object, 0);
+		return builder.append('\n').toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void write(StringBuilder builder, Map<String, ?> object, int depth) {
+		builder.append('{');
+		String separator = "\n";
+		for(Map.Entry<String, ?> entry : object.entrySet()) {
+			builder.append(separator);
+			indent(builder, depth + 1);
+			quote(builder, entry.getKey());
+			builder.append(": ");
+			Object value = entry.getValue();
+			if(value instanceof Map) {
+				write(builder, (Map<String, ?>) value, depth + 1);
+			}
+			else if(value instanceof Number) {
+				double number = ((Number) value).doubleValue();
+				if(number == Math.rint(number) && Math.abs(number) < 1e15) {
+					builder.append((long) number);
+				}
+				else {
+					builder.append(number);
+				}
+			}
+			else {
+				quote(builder, String.valueOf(value));
+			}
+			separator = ",\n";
+		}
+		builder.append('\n');
+		indent(builder, depth);
+		builder.append('}');
+	}
+
+	private static void indent(StringBuilder builder, int depth) {
+		for(int i = 0; i < depth; i++) {
+			builder.append('\t');
+		}
+	}
+
+	private static void quote(StringBuilder builder, String string) {
+		builder.append('"');
+		for(int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if(c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			}
+			else if(c < ' ') {
+				builder.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+		expect('{');
+		skipSpaces();
+		if(peek() == '}') {
+			position++;
+			return object;
+		}
+		while(true) {
+			skipSpaces();
+			String key = readString();
+			skipSpaces();
+			expect(':');
+			skipSpaces();
+			char c = peek();
+			Object value;
+			if(c == '{') {
+				value = readObject();
+			}
+			else if(c == '"') {
+				value = readString();
+			}
+			else {
+				value = readNumber();
+			}
+			object.put(key, value);
+			skipSpaces();
+			if(peek() == ',') {
+				position++;
+				continue;
+			}
+			expect('}');
+			return object;
+		}
+	}
+
+	private String readString() {
+		expect('"');
+		StringBuilder builder = new StringBuilder();
+		while(true) {
+			char c = next();
+			if(c == '"') {
+				return builder.toString();
+			}
+			if(c == '\\') {
+				c = next();
+				if(c == 'u') {
+					if(position + 4 > text.length()) {
+						throw error("four hex digits");
+					}
+					c = (char) Integer.parseInt(text.substring(position, position + 4), 16);
+					position += 4;
+				}
+				else if(c == 'n') {
+					c = '\n';
+				}
+				else if(c == 't') {
+					c = '\t';
+				}
+			}
+			builder.append(c);
+		}
+	}
+
+	private Double readNumber() {
+		int start = position;
+		while(position < text.length() && "+-.0123456789eE".indexOf(text.charAt(position)) >= 0) {
+			position++;
+		}
+		try {
+			return Double.valueOf(text.substring(start, position));
+		}
+		catch(NumberFormatException e) {
+			position = start;
+			throw error("a number, a string or an object");
+		}
+	}
+
+	private void skipSpaces() {
+		while(position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	private char peek() {
+		if(position >= text.length()) {
+			throw error("more input");
+		}
+		return text.charAt(position);
+	}
+
+	private char next() {
+		char c = peek();
+		position++;
+		return c;
+	}
+
+	private void expect(char c) {
+		if(next() != c) {
+			position--;
+			throw error("'" + c + "'");
+		}
+	}
+
+	private IllegalArgumentException error(String expected) {
+		return new IllegalArgumentException("expected " + expected + " at offset " + position);
+	}
+}
@@ -0,0 +1,146 @@
+package parallelzo;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import parallelzo.Inputs.Shape;
+
+/**
+ * StressTest runs the checks of {@link DifferentialTest} from several threads at once,
+ * on the same executors, while a load generator keeps the machine and the pools busy. <br />
+ * The load generator runs:
+ * <ul>
+ * <li>a thread per processor that computes and allocates, taking cores and causing collections</li>
+ * <li>threads that sort large arrays on the shared pools with random cancellations, and check that a
+ * cancelled sort throws {@link java.util.concurrent.CancellationException CancellationException}
+ * and leaves the same elements in the array, and that a sort that is not cancelled sorts it</li>
+ * </ul>
+ * Usage: <code>java parallelzo.StressTest [seconds [workers [seed]]]</code>.
+ * Every worker finishes the case it is running when the time is up.
+ * The exit status is the number of failures, at most 100.
+ *
+ * @author Oz Elentok <oz.elen@gmail.com>
+ * @version 1.0
+ */
+public class StressTest {
+	/**
+	 * Length of the arrays sorted by the load generator
+	 */
+	private static final int LOAD_LENGTH = 1 << 20;
+	/**
+	 * Number of threads of the load generator that sort with random cancellations
+	 */
+	private static final int CANCELLING_THREADS = 2;
+	/**
+	 * Last allocation of the load generator, so that its work is not optimized away
+	 */
+	static volatile Object sink;
+
+	public static void main(String[] args) throws InterruptedException {
+		int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+		int workers = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicLong rounds = new AtomicLong();
+		final AtomicLong cancelled = new AtomicLong();
+		final ParallelExecutor[] executors = DifferentialTest.executors();
+
+		Thread[] load = new Thread[Runtime.getRuntime().availableProcessors() + CANCELLING_THREADS];
+		for(int i = 0; i < load.length - CANCELLING_THREADS; i++) {
+			load[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					long[] garbage = null;
+					long x = 0;
+					while(System.nanoTime() < deadline) {
+						for(int j = 0; j < 100000; j++) {
+							x = x * 6364136223846793005L + 1442695040888963407L;
+						}
+						garbage = new long[(int) (x >>> 52) + 1];
+					}
+					sink = garbage;
+				}
+			}, "load-cpu-" + i);
+		}
+		for(int i = load.length - CANCELLING_THREADS; i < load.length; i++) {
+			final Random random = new Random(seed + i);
+			load[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while(System.nanoTime() < deadline) {
+						ParallelExecutor executor = executors[random.nextInt(executors.length)];
+						int[] array = Inputs.ints(Shape.RANDOM, LOAD_LENGTH, random);
+						int[] expected = array.clone();
+						Arrays.sort(expected);
+						Cancellation cancellation = Cancellation.withTimeout(random.nextInt(20), TimeUnit.MILLISECONDS);
+						try {
+							executor.sort(array, cancellation);
+							if(!Arrays.equals(array, expected)) {
+								fail(failures, "sort under load differs from the reference");
+							}
+						}
+						catch(CancellationException | CompletionException e) {
+							if(e instanceof CompletionException && !(e.getCause() instanceof CancellationException)) {
+								throw e;
+							}
+							cancelled.incrementAndGet();
+							Arrays.sort(array);
+							if(!Arrays.equals(array, expected)) {
+								fail(failures, "cancelled sort lost or duplicated elements");
+							}
+						}
+						catch(RuntimeException e) {
+							fail(failures, "sort under load threw " + e);
+						}
+					}
+				}
+			}, "load-cancel-" + i);
+		}
+
+		Thread[] threads = new Thread[workers];
+		for(int i = 0; i < workers; i++) {
+			final long workerSeed = seed + 1000 * (i + 1);
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for(long s = workerSeed; System.nanoTime() < deadline; s++) {
+						DifferentialTest test = new DifferentialTest(s);
+						test.run(executors, 1, deadline);
+						failures.addAndGet(test.getFailures());
+						rounds.incrementAndGet();
+					}
+				}
+			}, "worker-" + i);
+		}
+		for(Thread thread : load) {
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		for(Thread thread : load) {
+			thread.join();
+		}
+		System.out.println("seed " + seed + ": " + rounds.get() + " rounds on " + workers + " workers, "
+				+ cancelled.get() + " cancelled sorts, " + failures.get() + " failed");
+		System.exit(Math.min(failures.get(), 100));
+	}
+
+	/**
+	 * Records and prints a failure of the load generator.
+	 * @param failures	Number of failures
+	 * @param message	Description of the failure
+	 */
+	private static void fail(AtomicInteger failures, String message) {
+		failures.incrementAndGet();
+		System.err.println("FAIL " + message + " (" + Thread.currentThread().getName() + ")");
+	}
+}